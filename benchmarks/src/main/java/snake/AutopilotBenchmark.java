@@ -0,0 +1,53 @@
+package snake;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// One autopilot decision for a snake laid along the benchmark cycle, on a small
+// board and a large one: the cost a bot adds to every tick it plays.
+//
+// mvn -B package && java -jar benchmarks/target/benchmarks.jar AutopilotBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AutopilotBenchmark {
+    @Param({ "GREEDY", "SAFE", "HAMILTON" })
+    public String bot;
+
+    @Param({ "32", "1000" })
+    public int side;
+
+    @Param({ "6", "256" })
+    public int length;
+
+    SnakeState state;
+    SnakePolicy policy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SnakeEngine engine = new SnakeEngine(side, side);
+        state = engine.state();
+        Boards.layOut(engine, GameModes.named("CLASSIC"), length, Boards.cycle(side, side));
+        policy = Autopilot.valueOf(bot).policy(engine.rules);
+    }
+
+    @Benchmark
+    public SnakeEngine.Direction decide() {
+        return policy.next(state);
+    }
+}
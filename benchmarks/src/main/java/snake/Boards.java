@@ -0,0 +1,62 @@
+package snake;
+
+// Board layouts shared by the benchmarks. A snake of any length is laid along a
+// Hamiltonian cycle of the grid and steered along it, so it never dies and every
+// benchmark sees the same steady state however long it runs.
+class Boards {
+    private Boards() {
+    }
+
+    // The direction to leave each cell in to follow the cycle: row 0 runs right
+    // from column 0, rows then snake back and forth over columns 1..cols-1, and
+    // column 0 leads back up to the start. Needs an even number of rows.
+    static SnakeEngine.Direction[] cycle(int cols, int rows) {
+        SnakeEngine.Direction[] next = new SnakeEngine.Direction[cols * rows];
+        for (int y = 0; y < rows; y++) {
+            for (int x = 0; x < cols; x++) {
+                SnakeEngine.Direction d;
+                if (x == 0 && y > 0) {
+                    d = SnakeEngine.Direction.UP;
+                } else if (y % 2 == 0) {
+                    d = x == cols - 1 ? SnakeEngine.Direction.DOWN : SnakeEngine.Direction.RIGHT;
+                } else if (x == 1) {
+                    d = y == rows - 1 ? SnakeEngine.Direction.LEFT : SnakeEngine.Direction.DOWN;
+                } else {
+                    d = SnakeEngine.Direction.LEFT;
+                }
+                next[y * cols + x] = d;
+            }
+        }
+        return next;
+    }
+
+    // Resets the engine and replaces its snake with one of the given length lying
+    // on the cycle with its head at cell 0, then places a fresh apple
+    static void layOut(SnakeEngine engine, GameMode mode, int length, SnakeEngine.Direction[] next) {
+        engine.reset(mode, 42);
+        SnakeState s = engine.state();
+        s.clearBoard();
+        // Walk the cycle forwards from the head; segment i is i steps behind it,
+        // so write segments from the tail end of the ring back towards the head
+        int n = s.cols * s.rows;
+        int[] order = new int[n];
+        int c = 0;
+        for (int i = 0; i < n; i++) {
+            order[i] = c;
+            SnakeEngine.Direction d = next[c];
+            c = (c / s.cols + d.dy) * s.cols + c % s.cols + d.dx;
+        }
+        s.head = 0;
+        s.bodyParts = length;
+        for (int i = 0; i < s.x.length; i++) {
+            int cell = order[(n - Math.min(i, length - 1)) % n];
+            s.x[i] = (short) (cell % s.cols);
+            s.y[i] = (short) (cell / s.cols);
+            if (i < length)
+                s.enterCell(cell % s.cols, cell / s.cols);
+        }
+        s.direction = next[0];
+        s.obstacleCount = 0;
+        engine.newApple();
+    }
+}
@@ -0,0 +1,66 @@
+package snake;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Rogue enemies chasing a snake that runs round the benchmark cycle on a 32x32
+// board: one tick of snake move, enemy moves and contact, with the enemies
+// following the distance field (chase 1) or stepping straight at the head
+// (chase 0). Enemies that catch the head respawn at random, so the chase never
+// settles.
+//
+// mvn -B package && java -jar benchmarks/target/benchmarks.jar ChaseBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChaseBenchmark {
+    @Param({ "6", "256" })
+    public int length;
+
+    @Param({ "1", "100" })
+    public int enemies;
+
+    @Param({ "0", "1" })
+    public int chase;
+
+    SnakeEngine engine;
+    SnakeState state;
+    SnakeEngine.Direction[] next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SnakeRules rules = new SnakeRules();
+        rules.enemyChase = chase;
+        engine = new SnakeEngine(32, 32, rules);
+        state = engine.state();
+        next = Boards.cycle(state.cols, state.rows);
+        Boards.layOut(engine, GameModes.named("ROGUE"), length, next);
+        for (int i = 0; i < enemies; i++) {
+            engine.addEnemy();
+        }
+    }
+
+    @Benchmark
+    public int tick() {
+        state.direction = next[state.cellAt(state.headX(), state.headY())];
+        engine.move();
+        engine.enemyMove();
+        state.health = 1;
+        return engine.checkEnemy();
+    }
+}
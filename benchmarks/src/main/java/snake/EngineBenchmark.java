@@ -0,0 +1,76 @@
+package snake;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Per-tick engine costs at snake lengths from the starting 6 up to a full board
+// (a 32x32 board holds 1024 cells; 1022 segments leave room for the apple).
+//
+// mvn -B package && java -jar benchmarks/target/benchmarks.jar EngineBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+    @Param({ "6", "64", "256", "768", "1022" })
+    public int length;
+
+    SnakeEngine engine;
+    SnakeState state;
+    SnakeEngine.Direction[] next;
+    SnakeState copy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        engine = new SnakeEngine(32, 32);
+        state = engine.state();
+        copy = new SnakeEngine(32, 32).state();
+        next = Boards.cycle(state.cols, state.rows);
+        Boards.layOut(engine, GameModes.named("OBSTACLE"), length, next);
+    }
+
+    @Benchmark
+    public int move() {
+        state.direction = next[state.cellAt(state.headX(), state.headY())];
+        engine.move();
+        return state.head;
+    }
+
+    @Benchmark
+    public int checkCollisions() {
+        return engine.checkCollisions();
+    }
+
+    @Benchmark
+    public int newApple() {
+        engine.newApple();
+        return state.appleX;
+    }
+
+    @Benchmark
+    public int generateObstacles() {
+        engine.generateObstacles();
+        return state.obstacleCount;
+    }
+
+    // What each MonteCarloPolicy rollout pays to start from the game as it stands
+    @Benchmark
+    public int copyFrom() {
+        copy.copyFrom(state);
+        return copy.head;
+    }
+}
@@ -0,0 +1,84 @@
+package snake;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The reachability query a bot asks before every move: how many cells can the
+// head still get to? Answered by Bitboard.flood() over SnakeState.blocked, and
+// for comparison by a breadth-first search over the byte grids, the way it
+// would be done without the bitboard. Square boards of size cells a side.
+//
+// mvn -B package && java -jar benchmarks/target/benchmarks.jar FloodBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FloodBenchmark {
+    static final SnakeEngine.Direction[] DIRECTIONS = SnakeEngine.Direction.values();
+
+    @Param({ "32", "256" })
+    public int size;
+
+    @Param({ "6", "256", "768" })
+    public int length;
+
+    SnakeState state;
+    Bitboard reached;
+    int[] queue;
+    int[] seen; // the search that last reached each cell
+    int search;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SnakeEngine engine = new SnakeEngine(size, size);
+        state = engine.state();
+        Boards.layOut(engine, GameModes.named("CLASSIC"), length, Boards.cycle(size, size));
+        reached = new Bitboard(size, size);
+        queue = new int[state.cells];
+        seen = new int[state.cells];
+    }
+
+    @Benchmark
+    public int bitboard() {
+        return reached.flood(state.headX(), state.headY(), state.blocked, false);
+    }
+
+    @Benchmark
+    public int arrays() {
+        SnakeState s = state;
+        int stamp = ++search;
+        int head = 0;
+        int tail = 0;
+        int start = s.cellAt(s.headX(), s.headY());
+        queue[tail++] = start;
+        seen[start] = stamp;
+        while (head < tail) {
+            int c = queue[head++];
+            int cx = c % s.cols;
+            int cy = c / s.cols;
+            for (SnakeEngine.Direction d : DIRECTIONS) {
+                int n = s.cellAt(cx + d.dx, cy + d.dy);
+                if (n < 0 || seen[n] == stamp || s.snakeCells[n] != 0
+                        || (s.itemCells[n] & SnakeState.CELL_BLOCKING) != 0)
+                    continue;
+                seen[n] = stamp;
+                queue[tail++] = n;
+            }
+        }
+        return tail;
+    }
+}
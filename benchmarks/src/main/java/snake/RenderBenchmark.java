@@ -0,0 +1,85 @@
+package snake;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Cost of one GamePanel.draw() of a game in progress, rendered headless into an
+// offscreen image, at snake lengths from the starting 6 up to a full board, and
+// of one incremental renderFrame() as the snake moves a quarter cell.
+// A frame should allocate nothing: with -prof gc, gc.alloc.rate.norm stays at 0 B/op.
+//
+// mvn -B package && java -jar benchmarks/target/benchmarks.jar RenderBenchmark -prof gc
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+    @Param({ "6", "64", "256", "768", "1022" })
+    public int length;
+
+    GamePanel panel;
+    SnakeEngine.Direction[] next;
+    int frame;
+    BufferedImage image;
+    Graphics2D g;
+
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        panel = new GamePanel();
+        // startGame() puts the panel in the PLAYING state; stop its loop straight
+        // away so the benchmark owns the engine
+        panel.recordReplays = false;
+        panel.startGame();
+        panel.stop();
+        next = Boards.cycle(panel.state.cols, panel.state.rows);
+        Boards.layOut(panel.engine, GameModes.named("CLASSIC"), length, next);
+        panel.tailMoved = true;
+        panel.fullRedraw = true;
+        panel.renderFrame();
+        image = new BufferedImage(panel.width, panel.height, BufferedImage.TYPE_INT_RGB);
+        g = image.createGraphics();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage draw() {
+        panel.draw(g);
+        return image;
+    }
+
+    // Four frames per tick, as at 60 Hz with a 66 ms interval; the snake follows
+    // the cycle and never eats, so every tick moves both ends
+    @Benchmark
+    public long renderFrame() {
+        SnakeState s = panel.state;
+        if ((++frame & 3) == 0) {
+            s.direction = next[s.cellAt(s.headX(), s.headY())];
+            panel.engine.move();
+            s.tick++;
+        }
+        panel.renderAlpha = (frame & 3) / 4f;
+        panel.renderFrame();
+        return s.tick;
+    }
+}
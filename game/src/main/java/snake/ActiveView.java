@@ -0,0 +1,115 @@
+package snake;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.concurrent.locks.LockSupport;
+
+// Active rendering: a Canvas that its own render thread draws through a
+// BufferStrategy, instead of Swing's repaint() on the event dispatch thread.
+// The GamePanel still runs the game and handles keys; whenever it has a new
+// frame it calls requestFrame(), and the render thread draws the whole screen
+// into the back buffer and shows it. It draws only frames the game thread has
+// published, so the two never wait for each other. The strategy uses page
+// flipping where the platform offers it and an accelerated blit otherwise.
+//
+// Java has no public API for vertical sync in a window, so with vsync on the
+// render thread paces itself to the display's refresh rate instead, at most one
+// frame per refresh; with it off a frame is drawn as soon as it is requested.
+class ActiveView extends Canvas implements Runnable {
+    private final GamePanel game;
+    private final boolean vsync;
+    final FrameStats stats = new FrameStats("active");
+
+    private Thread renderThread;
+    private volatile boolean rendering;
+
+    ActiveView(GamePanel game, boolean vsync) {
+        this.game = game;
+        this.vsync = vsync;
+        setPreferredSize(new Dimension(game.width, game.height));
+        setBackground(Color.black);
+        setFocusable(true);
+        addKeyListener(game.keys);
+        game.activeView = this;
+    }
+
+    // Asks the render thread for a frame of the game's current state
+    void requestFrame() {
+        stats.request();
+        LockSupport.unpark(renderThread);
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        createBufferStrategy(2);
+        rendering = true;
+        renderThread = new Thread(this, "Snake render");
+        renderThread.setDaemon(true);
+        renderThread.start();
+        requestFrame();
+    }
+
+    @Override
+    public void removeNotify() {
+        rendering = false;
+        LockSupport.unpark(renderThread);
+        try {
+            renderThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        getBufferStrategy().dispose();
+        super.removeNotify();
+    }
+
+    // The render thread draws every frame; the toolkit's own repaints of the
+    // canvas (expose, resize) just ask it for one
+    @Override
+    public void paint(Graphics g) {
+        requestFrame();
+    }
+
+    @Override
+    public void update(Graphics g) {
+        requestFrame();
+    }
+
+    // The render loop: parks until a frame is requested, draws and shows it, and
+    // records how long that took and how long the request waited
+    public void run() {
+        BufferStrategy strategy = getBufferStrategy();
+        long nextFrame = System.nanoTime();
+        while (rendering) {
+            if (!stats.requested()) {
+                LockSupport.park(this);
+                continue;
+            }
+            long now = System.nanoTime();
+            if (vsync) {
+                if (now < nextFrame) {
+                    LockSupport.parkNanos(this, nextFrame - now);
+                    continue;
+                }
+                nextFrame += game.framePeriod;
+                if (nextFrame < now)
+                    nextFrame = now + game.framePeriod;
+            }
+            long requested = stats.takeRequest();
+            long start = System.nanoTime();
+            // The usual BufferStrategy loop: redraw if the back buffer was lost
+            // while drawing, show again if it was lost on the way to the screen
+            do {
+                do {
+                    Graphics g = strategy.getDrawGraphics();
+                    game.drawFrame(g);
+                    g.dispose();
+                } while (strategy.contentsRestored());
+                strategy.show();
+            } while (strategy.contentsLost());
+            Toolkit.getDefaultToolkit().sync();
+            long end = System.nanoTime();
+            stats.record(end - start, end - requested);
+        }
+    }
+}
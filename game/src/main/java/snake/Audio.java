@@ -0,0 +1,213 @@
+package snake;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.awt.GraphicsEnvironment;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Sound effects for engine events, played off the game thread. Every clip is
+// synthesised into PCM once, up front. The game thread hands each tick's event
+// flags to play(), which only writes them into a lock-free ring buffer and wakes
+// the mixer thread: it never blocks and never allocates. The mixer starts a voice
+// per event from a fixed pool, mixes whatever voices are sounding into one
+// SourceDataLine a short chunk at a time, and parks when all of them have
+// finished. With no sound device, in a headless run, or with -Dsnake.sound=false,
+// the engine is silent: play() does nothing and no thread is started.
+final class Audio {
+    static final float SAMPLE_RATE = 22050f;
+    static final int VOICES = 8;
+    static final int CHUNK_FRAMES = 256; // about 12 ms
+    static final int QUEUE_SIZE = 64;
+
+    // One clip per EVENT_* bit, indexed by the bit's position
+    private static final short[][] CLIPS = {
+        tone(880, 880, 60, false),                       // EVENT_APPLE
+        concat(tone(660, 990, 60, false), tone(990, 1320, 60, false)), // EVENT_BONUS
+        concat(tone(523, 523, 70, false), tone(784, 784, 90, false)),  // EVENT_SHIELD
+        tone(440, 880, 150, false),                      // EVENT_POTION
+        tone(110, 90, 120, true),                        // EVENT_HIT
+        tone(440, 110, 400, true),                       // EVENT_DEATH
+        concat(concat(tone(523, 523, 90, false), tone(659, 659, 90, false)),
+                concat(tone(784, 784, 90, false), tone(1047, 1047, 200, false))), // EVENT_WIN
+    };
+
+    static final Audio SILENT = new Audio(null, false);
+
+    private final SourceDataLine line;
+    private final boolean enabled;
+    private final Thread mixer;
+
+    // Event flags on their way from the game thread to the mixer, as in InputQueue
+    private final int[] events = new int[QUEUE_SIZE];
+    private final AtomicLong head = new AtomicLong(); // mixer's
+    private final AtomicLong tail = new AtomicLong(); // game thread's
+    private long dropped; // game thread only
+
+    // Mixer thread only: the clip each voice plays (-1 if idle) and how far it is
+    private final int[] voiceClip = new int[VOICES];
+    private final int[] voicePosition = new int[VOICES];
+    private final int[] mix = new int[CHUNK_FRAMES];
+    private final byte[] out = new byte[CHUNK_FRAMES * 2];
+
+    // Without a line, an enabled engine queues events but starts no thread, so
+    // mix() can be driven by hand
+    Audio(SourceDataLine line, boolean enabled) {
+        this.line = line;
+        this.enabled = enabled;
+        Arrays.fill(voiceClip, -1);
+        if (line != null) {
+            mixer = new Thread(this::mixLoop, "Snake audio mixer");
+            mixer.setDaemon(true);
+            mixer.start();
+        } else {
+            mixer = null;
+        }
+    }
+
+    // Opens the default sound device, or returns SILENT if there is none to open
+    static Audio open() {
+        if (GraphicsEnvironment.isHeadless() || !Boolean.parseBoolean(System.getProperty("snake.sound", "true")))
+            return SILENT;
+        AudioFormat format = new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
+        try {
+            SourceDataLine line = AudioSystem.getSourceDataLine(format);
+            // A few chunks of buffer: enough to ride out a late wake-up, little
+            // enough that a sound starts within a frame or two of its event
+            line.open(format, CHUNK_FRAMES * 2 * 4);
+            line.start();
+            return new Audio(line, true);
+        } catch (LineUnavailableException | IllegalArgumentException | SecurityException e) {
+            System.err.println("No sound: " + e.getMessage());
+            return SILENT;
+        }
+    }
+
+    // Game thread: queues the sounds for a tick's EVENT_* flags. Events that find
+    // the queue full are dropped; a missed blip is better than a late tick.
+    void play(int eventFlags) {
+        if (!enabled || eventFlags == 0)
+            return;
+        long t = tail.get();
+        if (t - head.get() == events.length) {
+            dropped++;
+            return;
+        }
+        events[(int) t & (events.length - 1)] = eventFlags;
+        tail.lazySet(t + 1);
+        LockSupport.unpark(mixer);
+    }
+
+    private void mixLoop() {
+        while (true) {
+            int frames = mix();
+            if (frames == 0) {
+                // Nothing sounding: sleep until play() has something; its unpark
+                // is remembered if it comes before this park
+                LockSupport.park(this);
+                continue;
+            }
+            // Blocks while the line's buffer is full, which is what paces the mixer
+            line.write(out, 0, frames * 2);
+        }
+    }
+
+    // Mixer thread: starts voices for queued events, then mixes the next chunk
+    // into out as 16-bit little-endian samples. Returns the frames mixed, 0 if
+    // nothing is sounding.
+    int mix() {
+        long h = head.get();
+        long t = tail.get();
+        for (; h < t; h++) {
+            int flags = events[(int) h & (events.length - 1)];
+            while (flags != 0) {
+                start(Integer.numberOfTrailingZeros(flags));
+                flags &= flags - 1;
+            }
+        }
+        head.lazySet(h);
+
+        int frames = 0;
+        Arrays.fill(mix, 0);
+        for (int v = 0; v < VOICES; v++) {
+            int c = voiceClip[v];
+            if (c < 0)
+                continue;
+            short[] clip = CLIPS[c];
+            int p = voicePosition[v];
+            int n = Math.min(CHUNK_FRAMES, clip.length - p);
+            for (int i = 0; i < n; i++) {
+                mix[i] += clip[p + i];
+            }
+            frames = Math.max(frames, n);
+            if (p + n == clip.length) {
+                voiceClip[v] = -1;
+            } else {
+                voicePosition[v] = p + n;
+            }
+        }
+        for (int i = 0; i < frames; i++) {
+            int s = Math.max(Short.MIN_VALUE, Math.min(Short.MAX_VALUE, mix[i]));
+            out[2 * i] = (byte) s;
+            out[2 * i + 1] = (byte) (s >> 8);
+        }
+        return frames;
+    }
+
+    // Gives the clip a voice: an idle one, or else the one nearest its end
+    private void start(int clip) {
+        if (clip >= CLIPS.length)
+            return;
+        int chosen = 0;
+        int left = Integer.MAX_VALUE;
+        for (int v = 0; v < VOICES; v++) {
+            if (voiceClip[v] < 0) {
+                chosen = v;
+                break;
+            }
+            int remaining = CLIPS[voiceClip[v]].length - voicePosition[v];
+            if (remaining < left) {
+                left = remaining;
+                chosen = v;
+            }
+        }
+        voiceClip[chosen] = clip;
+        voicePosition[chosen] = 0;
+    }
+
+    // Bytes the mixer has last produced, for checking it without a device
+    byte[] output() {
+        return out;
+    }
+
+    // Game thread: events dropped so far because the mixer had fallen behind
+    long dropped() {
+        return dropped;
+    }
+
+    // A sweep from one frequency to another with a quick attack and linear decay,
+    // at a quarter of full scale so several voices can sound at once unclipped.
+    // square gives a harsher square wave instead of a sine.
+    private static short[] tone(double fromHz, double toHz, int millis, boolean square) {
+        int n = (int) (SAMPLE_RATE * millis / 1000);
+        short[] clip = new short[n];
+        double phase = 0;
+        for (int i = 0; i < n; i++) {
+            double f = fromHz + (toHz - fromHz) * i / n;
+            phase += 2 * Math.PI * f / SAMPLE_RATE;
+            double wave = square ? Math.signum(Math.sin(phase)) * 0.6 : Math.sin(phase);
+            double envelope = Math.min(1.0, i / (SAMPLE_RATE * 0.005)) * (1.0 - (double) i / n);
+            clip[i] = (short) (wave * envelope * Short.MAX_VALUE / 4);
+        }
+        return clip;
+    }
+
+    private static short[] concat(short[] a, short[] b) {
+        short[] clip = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, clip, a.length, b.length);
+        return clip;
+    }
+}
@@ -0,0 +1,40 @@
+package snake;
+
+// The strategies the autopilot can play with, in the order the menu steps
+// through them. A policy keeps state, so every game gets a fresh one.
+enum Autopilot {
+    GREEDY("Greedy"),
+    SAFE("Safe"),
+    HAMILTON("Hamiltonian"),
+    MONTE_CARLO("Monte Carlo");
+
+    final String title;
+
+    Autopilot(String title) {
+        this.title = title;
+    }
+
+    // A policy for games played on the given rules, which a bot that plays
+    // ahead needs to play by
+    SnakePolicy policy(SnakeRules rules) {
+        switch (this) {
+            case GREEDY:
+                return new GreedyPolicy();
+            case SAFE:
+                return new SafePolicy();
+            case HAMILTON:
+                return new HamiltonPolicy();
+            default:
+                return new MonteCarloPolicy(rules);
+        }
+    }
+
+    // Looks a strategy up by its id or title, ignoring case
+    static Autopilot named(String name) {
+        for (Autopilot a : values()) {
+            if (a.name().equalsIgnoreCase(name) || a.title.equalsIgnoreCase(name))
+                return a;
+        }
+        throw new IllegalArgumentException("Unknown autopilot: " + name);
+    }
+}
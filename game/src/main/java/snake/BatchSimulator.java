@@ -0,0 +1,215 @@
+package snake;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Supplier;
+
+// Plays many independent seeded games at once on a fork-join pool and gathers
+// score, length and survival-tick distributions, so SnakeRules can be tuned
+// without anyone sitting at the keyboard. Game i always uses seed firstSeed + i,
+// so a batch gives the same numbers however many threads run it.
+//
+// Usage: java BatchSimulator [mode] [games] [firstSeed] [threads] [rule=value ...] [bot=NAME]
+// e.g.   java BatchSimulator BONUS 100000 1 8 bonusDuration=300 applesPerBonus=8
+// The games are played by GreedyPolicy unless bot names another Autopilot strategy.
+public class BatchSimulator {
+    // Games each fork-join leaf plays with one reused engine
+    static final int GAMES_PER_TASK = 64;
+
+    final ForkJoinPool pool;
+    int cols = 32;
+    int rows = 32;
+    long maxTicks = 1_000_000; // games still alive after this many ticks are cut off
+
+    public BatchSimulator(int parallelism) {
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    // Plays games seeded firstSeed .. firstSeed + games - 1, each with a fresh policy.
+    // Rules that cannot be played on the board, or no games, are turned down
+    // here rather than from inside the pool.
+    public Result run(GameMode mode, SnakeRules rules, Supplier<? extends SnakePolicy> policies,
+            long firstSeed, int games) {
+        if (games <= 0)
+            throw new IllegalArgumentException("games must be at least 1: " + games);
+        rules.check(cols, rows);
+        Result result = new Result(mode, games);
+        long start = System.nanoTime();
+        pool.invoke(new Batch(mode, rules, policies, firstSeed, result, 0, games));
+        result.elapsedNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    // Splits the game range in halves until a leaf is small enough to play serially.
+    // Each leaf writes only its own slots of the result arrays, so no locking is needed.
+    class Batch extends RecursiveAction {
+        final GameMode mode;
+        final SnakeRules rules;
+        final Supplier<? extends SnakePolicy> policies;
+        final long firstSeed;
+        final Result result;
+        final int from;
+        final int to;
+
+        Batch(GameMode mode, SnakeRules rules, Supplier<? extends SnakePolicy> policies, long firstSeed,
+                Result result, int from, int to) {
+            this.mode = mode;
+            this.rules = rules;
+            this.policies = policies;
+            this.firstSeed = firstSeed;
+            this.result = result;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > GAMES_PER_TASK) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Batch(mode, rules, policies, firstSeed, result, from, mid),
+                        new Batch(mode, rules, policies, firstSeed, result, mid, to));
+                return;
+            }
+            SnakeEngine engine = new SnakeEngine(cols, rows, rules);
+            SnakeState state = engine.state();
+            for (int i = from; i < to; i++) {
+                SnakePolicy policy = policies.get();
+                engine.reset(mode, firstSeed + i);
+                while (state.alive && state.tick < maxTicks) {
+                    engine.step(policy.next(state));
+                }
+                result.scores[i] = state.applesEaten;
+                result.lengths[i] = state.bodyParts;
+                result.ticks[i] = state.tick;
+                result.won[i] = state.won;
+            }
+        }
+    }
+
+    // Per-game outcomes of one batch
+    public static class Result {
+        final GameMode mode;
+        final int[] scores;
+        final int[] lengths;
+        final long[] ticks;
+        final boolean[] won;
+        long elapsedNanos;
+
+        Result(GameMode mode, int games) {
+            this.mode = mode;
+            scores = new int[games];
+            lengths = new int[games];
+            ticks = new long[games];
+            won = new boolean[games];
+        }
+
+        public Distribution scores() {
+            return Distribution.of(Arrays.stream(scores).asLongStream().toArray());
+        }
+
+        public Distribution lengths() {
+            return Distribution.of(Arrays.stream(lengths).asLongStream().toArray());
+        }
+
+        public Distribution ticks() {
+            return Distribution.of(ticks.clone());
+        }
+
+        public int wins() {
+            int wins = 0;
+            for (boolean w : won) {
+                if (w)
+                    wins++;
+            }
+            return wins;
+        }
+
+        public long totalTicks() {
+            long total = 0;
+            for (long t : ticks) {
+                total += t;
+            }
+            return total;
+        }
+
+        @Override
+        public String toString() {
+            double seconds = elapsedNanos / 1e9;
+            return String.format("%s: %d games (%d won) in %.2fs, %.1fM ticks/s%n  score  %s%n  length %s%n  ticks  %s",
+                    mode.name(), scores.length, wins(), seconds, totalTicks() / seconds / 1e6, scores(), lengths(), ticks());
+        }
+    }
+
+    // Summary of one measured quantity across a batch
+    public static class Distribution {
+        final long min;
+        final long p10;
+        final long p50;
+        final long p90;
+        final long p99;
+        final long max;
+        final double mean;
+
+        Distribution(long[] sorted) {
+            min = sorted[0];
+            p10 = percentile(sorted, 10);
+            p50 = percentile(sorted, 50);
+            p90 = percentile(sorted, 90);
+            p99 = percentile(sorted, 99);
+            max = sorted[sorted.length - 1];
+            mean = Arrays.stream(sorted).average().orElse(0);
+        }
+
+        // Sorts values in place
+        static Distribution of(long[] values) {
+            Arrays.sort(values);
+            return new Distribution(values);
+        }
+
+        static long percentile(long[] sorted, int p) {
+            return sorted[(int) ((sorted.length - 1) * (long) p / 100)];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("mean %.1f  min %d  p10 %d  p50 %d  p90 %d  p99 %d  max %d",
+                    mean, min, p10, p50, p90, p99, max);
+        }
+    }
+
+    public static void main(String[] args) {
+        GameMode mode = GameModes.named(args.length > 0 ? args[0] : "CLASSIC");
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        if (games <= 0) {
+            System.err.println("games must be at least 1: " + games);
+            System.exit(2);
+        }
+        long firstSeed = args.length > 2 ? Long.parseLong(args[2]) : 1;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        SnakeRules rules = new SnakeRules();
+        Autopilot bot = Autopilot.GREEDY;
+        BatchSimulator simulator = new BatchSimulator(threads);
+        try {
+            for (int i = 4; i < args.length; i++) {
+                String[] rule = args[i].split("=", 2);
+                if (rule[0].equals("bot"))
+                    bot = Autopilot.named(rule[1]);
+                else
+                    rules.set(rule[0], Integer.parseInt(rule[1]));
+            }
+            rules.check(simulator.cols, simulator.rows);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+
+        Autopilot player = bot;
+        System.out.println(simulator.run(mode, rules, () -> player.policy(rules), firstSeed, games));
+        simulator.shutdown();
+    }
+}
@@ -0,0 +1,167 @@
+package snake;
+
+import java.util.Arrays;
+
+// One bit per cell of the board, row by row, each row padded to whole longs so a
+// cell's neighbours above and below sit at the same bit of the next word over.
+// That lets flood() spread a whole row of 64 cells at a time with shifts and
+// masks, where a breadth-first search over the byte grids visits them one by one.
+final class Bitboard {
+    final int cols;
+    final int rows;
+    final int stride; // longs per row
+    final long[] bits;
+    private final long lastMask; // the bits of a row's last word that are on the board
+
+    Bitboard(int cols, int rows) {
+        this.cols = cols;
+        this.rows = rows;
+        stride = (cols + 63) >>> 6;
+        bits = new long[stride * rows];
+        lastMask = -1L >>> -cols;
+    }
+
+    boolean get(int cx, int cy) {
+        return (bits[cy * stride + (cx >>> 6)] & 1L << cx) != 0;
+    }
+
+    void put(int cx, int cy, boolean on) {
+        int w = cy * stride + (cx >>> 6);
+        if (on)
+            bits[w] |= 1L << cx;
+        else
+            bits[w] &= ~(1L << cx);
+    }
+
+    void clear() {
+        Arrays.fill(bits, 0L);
+    }
+
+    int count() {
+        int n = 0;
+        for (long word : bits) {
+            n += Long.bitCount(word);
+        }
+        return n;
+    }
+
+    // Sets exactly the cells reachable from (cx, cy) in four-way steps through
+    // cells clear in walls, around the edges too if wrap, and returns how many
+    // there are. The start cell is counted whatever walls holds there, as a head
+    // asking where it can go is itself in a wall.
+    //
+    // Sweeps the rows top to bottom and back, each row taking what its neighbour
+    // reached above or below and then spreading sideways, until a pair of sweeps
+    // changes nothing. A sweep follows a passage any distance down (or up) the
+    // board, so it takes about one pair per turn in the longest winding path,
+    // and a row only spreads sideways when it gained something from above or below.
+    int flood(int cx, int cy, Bitboard walls, boolean wrap) {
+        clear();
+        bits[cy * stride + (cx >>> 6)] = 1L << cx;
+        fill(cy * stride, walls.bits, wrap);
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int y = 0; y < rows; y++) {
+                changed |= spreadRow(y, y > 0 ? y - 1 : wrap ? rows - 1 : -1, walls.bits, wrap);
+            }
+            for (int y = rows - 1; y >= 0; y--) {
+                changed |= spreadRow(y, y < rows - 1 ? y + 1 : wrap ? 0 : -1, walls.bits, wrap);
+            }
+        }
+        return count();
+    }
+
+    // Row y takes the open cells next to what row "from" has reached (none if
+    // from is -1), and if that is anything new fills sideways along its open
+    // runs. Returns whether the row gained anything.
+    private boolean spreadRow(int y, int from, long[] walls, boolean wrap) {
+        if (from < 0)
+            return false;
+        int row = y * stride;
+        int other = from * stride;
+        int last = row + stride - 1;
+        boolean changed = false;
+        for (int i = 0; i < stride; i++) {
+            long open = ~walls[row + i] & (row + i == last ? lastMask : -1L);
+            long reached = bits[row + i] | bits[other + i] & open;
+            changed |= reached != bits[row + i];
+            bits[row + i] = reached;
+        }
+        if (changed)
+            fill(row, walls, wrap);
+        return changed;
+    }
+
+    // Spreads the row starting at word row sideways, and around if wrap
+    private void fill(int row, long[] walls, boolean wrap) {
+        int last = row + stride - 1;
+        fillRow(row, last, walls);
+        while (wrap && carryAround(row, last, walls)) {
+            fillRow(row, last, walls);
+        }
+    }
+
+    // A run that reaches one end of a wrapping row carries on at the other.
+    // Returns whether it did.
+    private boolean carryAround(int row, int last, long[] walls) {
+        long lastBit = 1L << (cols - 1);
+        boolean first = (bits[row] & 1L) != 0;
+        boolean end = (bits[last] & lastBit) != 0;
+        if (first == end)
+            return false;
+        if (first && (walls[last] & lastBit) == 0) {
+            bits[last] |= lastBit;
+            return true;
+        }
+        if (end && (walls[row] & 1L) == 0) {
+            bits[row] |= 1L;
+            return true;
+        }
+        return false;
+    }
+
+    // Spreads the reached cells of one row along the open runs they are in, up
+    // the row word by word and then down it, each word by a Kogge-Stone fill of
+    // six shift-and-mask steps.
+    private void fillRow(int row, int last, long[] walls) {
+        long carry = 0;
+        for (int i = row; i <= last; i++) {
+            long open = ~walls[i] & (i == last ? lastMask : -1L);
+            long g = bits[i] | carry & open;
+            long p = open;
+            g |= p & g << 1;
+            p &= p << 1;
+            g |= p & g << 2;
+            p &= p << 2;
+            g |= p & g << 4;
+            p &= p << 4;
+            g |= p & g << 8;
+            p &= p << 8;
+            g |= p & g << 16;
+            p &= p << 16;
+            g |= p & g << 32;
+            bits[i] = g;
+            carry = g >>> 63;
+        }
+        carry = 0;
+        for (int i = last; i >= row; i--) {
+            long open = ~walls[i] & (i == last ? lastMask : -1L);
+            long g = bits[i] | carry << 63 & open;
+            long p = open;
+            g |= p & g >>> 1;
+            p &= p >>> 1;
+            g |= p & g >>> 2;
+            p &= p >>> 2;
+            g |= p & g >>> 4;
+            p &= p >>> 4;
+            g |= p & g >>> 8;
+            p &= p >>> 8;
+            g |= p & g >>> 16;
+            p &= p >>> 16;
+            g |= p & g >>> 32;
+            bits[i] = g;
+            carry = g & 1;
+        }
+    }
+}
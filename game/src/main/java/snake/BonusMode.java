@@ -0,0 +1,22 @@
+package snake;
+
+// Classic rules plus a short-lived bonus fruit every applesPerBonus apples
+public class BonusMode extends ClassicMode {
+    @Override
+    public String name() {
+        return "BONUS";
+    }
+
+    @Override
+    public String title() {
+        return "Bonus";
+    }
+
+    @Override
+    public void onApple(SnakeEngine engine) {
+        SnakeState s = engine.state;
+        if (s.applesEaten % engine.rules.applesPerBonus == 0 && s.entities.count(Entities.BONUS) == 0) {
+            engine.spawn(Entities.BONUS, engine.rules.bonusDuration, Entities.STILL);
+        }
+    }
+}
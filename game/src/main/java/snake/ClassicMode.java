@@ -0,0 +1,39 @@
+package snake;
+
+// Walls kill, apples grow the snake, and a shield power-up turns up every
+// applesPerShield apples. The other board modes build on these rules.
+public class ClassicMode implements GameMode {
+    @Override
+    public String name() {
+        return "CLASSIC";
+    }
+
+    @Override
+    public String title() {
+        return "Classic";
+    }
+
+    @Override
+    public int tick(SnakeEngine engine) {
+        SnakeState s = engine.state;
+        SnakeRules rules = engine.rules;
+        int events = engine.checkBonus();
+        // Spawn shield power-up every applesPerShield apples if not already active or collected
+        if (s.entities.count(Entities.SHIELD) == 0 && !s.hasShield
+                && s.applesEaten != 0 && s.applesEaten % rules.applesPerShield == 0) {
+            engine.spawn(Entities.SHIELD, rules.shieldDuration, Entities.STILL);
+        }
+        engine.countDown(Entities.SHIELD);
+        events |= engine.checkCollisions();
+        if (!s.alive)
+            return events;
+        // Bonus fruit countdown
+        engine.countDown(Entities.BONUS);
+        return events;
+    }
+
+    @Override
+    public String status(SnakeState state) {
+        return state.hasShield ? "Shield: ON" : null;
+    }
+}
@@ -0,0 +1,108 @@
+package snake;
+
+import java.util.Arrays;
+
+// How many steps every cell is from the snake's head, walking round its body and
+// any obstacles, for Rogue enemies to chase along. One breadth-first search a
+// tick serves every enemy: each then reads its next step off the field, a
+// neighbour one step nearer, so a hundred enemies cost the same search as one.
+// The search stops once it has reached every enemy, as the cells further out are
+// never asked about, and an enemy it never reaches has no way to the head.
+// Boards past SnakeEngine.CHASE_CELLS never search, so never make the arrays.
+final class DistanceField {
+    private static final SnakeEngine.Direction[] DIRECTIONS = SnakeEngine.Direction.values();
+
+    private final SnakeState state;
+    // A cell's distance is mark - base, if mark >= base. Each search takes a base
+    // past every mark the last one left, so the marks are never cleared between
+    // searches, only when the bases run out.
+    private int[] mark;
+    private int base;
+    private int next = 1;
+    private int last;     // the highest mark the search has given
+    private int[] queue;  // cells the search has reached, grown as it reaches more
+    private int queued;
+
+    DistanceField(SnakeState state) {
+        this.state = state;
+    }
+
+    // Searches out from the head as the board stands now. The arrays are made on
+    // the first search, so boards nobody chases on never pay for them.
+    void compute() {
+        SnakeState s = state;
+        if (mark == null) {
+            mark = new int[s.cells];
+            queue = new int[Math.min(s.cells, 1024)];
+        }
+        if (next > Integer.MAX_VALUE - s.cells) {
+            Arrays.fill(mark, 0);
+            next = 1;
+        }
+        base = next;
+        last = base;
+        int start = s.cellAt(s.headX(), s.headY());
+        mark[start] = base;
+        int found = (s.itemCells[start] & SnakeState.CELL_ENEMY) != 0 ? 1 : 0;
+        int enemies = s.entities.count(Entities.ENEMY);
+        queue[0] = start;
+        queued = 1;
+        int cols = s.cols;
+        int rows = s.rows;
+        boolean wrap = s.wrap;
+        for (int i = 0; i < queued && found < enemies; i++) {
+            int c = queue[i];
+            // The neighbours in Direction order
+            int cy = c / cols;
+            int cx = c - cy * cols;
+            int label = mark[c] + 1;
+            if (cy > 0)
+                found += visit(c - cols, label);
+            else if (wrap)
+                found += visit(c + s.cells - cols, label);
+            if (cy < rows - 1)
+                found += visit(c + cols, label);
+            else if (wrap)
+                found += visit(cx, label);
+            if (cx > 0)
+                found += visit(c - 1, label);
+            else if (wrap)
+                found += visit(c + cols - 1, label);
+            if (cx < cols - 1)
+                found += visit(c + 1, label);
+            else if (wrap)
+                found += visit(c - cx, label);
+        }
+        next = last + 1;
+    }
+
+    // Labels cell n and queues it, unless it is labelled already or blocked.
+    // Returns 1 if it holds an enemy, else 0.
+    private int visit(int n, int label) {
+        SnakeState s = state;
+        if (mark[n] >= base || s.snakeCells[n] != 0 || (s.itemCells[n] & SnakeState.CELL_OBSTACLE) != 0)
+            return 0;
+        mark[n] = label;
+        last = label;
+        if (queued == queue.length)
+            queue = Arrays.copyOf(queue, Math.min(s.cells, queued * 2));
+        queue[queued++] = n;
+        return (s.itemCells[n] & SnakeState.CELL_ENEMY) != 0 ? 1 : 0;
+    }
+
+    // Where an enemy at (cx, cy) steps next: the first neighbour, in Direction
+    // order, one step nearer the head that no other enemy or obstacle holds.
+    // -1 to stay put: the enemy is on the head, unreachable or hemmed in.
+    int stepFrom(int cx, int cy) {
+        SnakeState s = state;
+        int here = mark[s.cellAt(cx, cy)];
+        if (here <= base)
+            return -1;
+        for (SnakeEngine.Direction d : DIRECTIONS) {
+            int n = s.cellToward(cx, cy, d);
+            if (n >= 0 && mark[n] == here - 1 && (s.itemCells[n] & SnakeState.CELL_BLOCKING) == 0)
+                return n;
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,112 @@
+package snake;
+
+import java.util.Arrays;
+
+// The things on the board besides the snake, the apple and obstacles: Rogue
+// enemies and the power-ups. An entity is a slot number, and its components are
+// that slot of each array, so the engine's systems (timers counting down,
+// enemies moving) each run down the one or two arrays they need with no object
+// per entity. A removed entity's slot goes to the next one added, so slots stay
+// below top and the arrays only grow to the most entities there have been at once.
+final class Entities {
+    // Kinds, in the order they are drawn, each marking its cell with FLAGS[kind]
+    static final byte NONE = 0; // an empty slot
+    static final byte BONUS = 1;
+    static final byte SHIELD = 2;
+    static final byte ENEMY = 3;
+    static final byte POTION = 4;
+    static final int KINDS = 5;
+    static final byte[] FLAGS = {
+            0, SnakeState.CELL_BONUS, SnakeState.CELL_SHIELD, SnakeState.CELL_ENEMY, SnakeState.CELL_POTION,
+    };
+
+    // Behaviours: how an entity moves each tick
+    static final byte STILL = 0;
+    static final byte CHASE = 1; // along the engine's distance field to the head
+    static final byte STEP = 2;  // diagonally straight at the head
+
+    int top; // every entity's slot is below top
+    byte[] kind = new byte[16];
+    int[] x = new int[16];
+    int[] y = new int[16];
+    int[] timer = new int[16]; // ticks left, for kinds that run out
+    byte[] behaviour = new byte[16];
+    private final int[] counts = new int[KINDS];
+    private int[] free = new int[16]; // slots below top to reuse, last freed first
+    private int freeCount;
+
+    int count(byte k) {
+        return counts[k];
+    }
+
+    // Puts an entity in a free slot and returns the slot
+    int add(byte k, int cx, int cy, int ticks, byte moves) {
+        int e;
+        if (freeCount > 0) {
+            e = free[--freeCount];
+        } else {
+            e = top++;
+            if (e == kind.length) {
+                int size = e * 2;
+                kind = Arrays.copyOf(kind, size);
+                x = Arrays.copyOf(x, size);
+                y = Arrays.copyOf(y, size);
+                timer = Arrays.copyOf(timer, size);
+                behaviour = Arrays.copyOf(behaviour, size);
+                free = Arrays.copyOf(free, size);
+            }
+        }
+        kind[e] = k;
+        x[e] = cx;
+        y[e] = cy;
+        timer[e] = ticks;
+        behaviour[e] = moves;
+        counts[k]++;
+        return e;
+    }
+
+    void remove(int e) {
+        counts[kind[e]]--;
+        kind[e] = NONE;
+        behaviour[e] = STILL;
+        free[freeCount++] = e;
+    }
+
+    // The slot of the entity of kind k on cell (cx, cy), or -1
+    int find(byte k, int cx, int cy) {
+        for (int e = 0; e < top; e++) {
+            if (kind[e] == k && x[e] == cx && y[e] == cy)
+                return e;
+        }
+        return -1;
+    }
+
+    // Makes this store a copy of another, slots and all
+    void copyFrom(Entities o) {
+        if (kind.length < o.top) {
+            kind = new byte[o.kind.length];
+            x = new int[o.x.length];
+            y = new int[o.y.length];
+            timer = new int[o.timer.length];
+            behaviour = new byte[o.behaviour.length];
+            free = new int[o.free.length];
+        }
+        top = o.top;
+        System.arraycopy(o.kind, 0, kind, 0, top);
+        System.arraycopy(o.x, 0, x, 0, top);
+        System.arraycopy(o.y, 0, y, 0, top);
+        System.arraycopy(o.timer, 0, timer, 0, top);
+        System.arraycopy(o.behaviour, 0, behaviour, 0, top);
+        System.arraycopy(o.counts, 0, counts, 0, KINDS);
+        freeCount = o.freeCount;
+        System.arraycopy(o.free, 0, free, 0, freeCount);
+    }
+
+    void clear() {
+        Arrays.fill(kind, 0, top, NONE);
+        Arrays.fill(behaviour, 0, top, STILL);
+        Arrays.fill(counts, 0);
+        top = 0;
+        freeCount = 0;
+    }
+}
@@ -0,0 +1,90 @@
+package snake;
+
+import java.util.Arrays;
+
+// Everything one frame of the PLAYING or GAMEOVER screen shows, copied out of
+// the engine by the game thread after a tick and drawn by whichever thread
+// renders. Once published through a TripleBuffer a frame is never written again
+// until the reader has let go of it, so a renderer always sees one whole tick:
+// never a head that has moved next to an apple that has not. Frames are reused;
+// their arrays only grow, when the snake, obstacles or entities outgrow them.
+final class Frame {
+    boolean over;   // the GAMEOVER screen rather than the board
+    long tick;
+    float alpha;    // renderAlpha when the frame was taken
+    int viewX, viewY; // the board cell shown in the view's top-left corner
+
+    // The snake from the head, bodyParts cells and then the one the tail just left
+    int bodyParts;
+    short[] x = new short[0];
+    short[] y = new short[0];
+    boolean tailMoved;
+
+    int appleX, appleY;
+    int obstacleCount;
+    int[] obstacleX = new int[0];
+    int[] obstacleY = new int[0];
+    // Entities by slot, Entities.NONE in the empty ones
+    int entityTop;
+    byte[] entityKind = new byte[0];
+    int[] entityX = new int[0];
+    int[] entityY = new int[0];
+
+    // HUD text and where it goes; null text is not drawn
+    final String[] hudText;
+    final int[] hudX;
+
+    // GAMEOVER screen
+    boolean won;
+    String finalScore;
+    int finalScoreWidth;
+    String rank; // null unless the game made the leaderboard
+    int rankWidth;
+
+    Frame(int hudLabels) {
+        hudText = new String[hudLabels];
+        hudX = new int[hudLabels];
+    }
+
+    // Copies the board out of the engine's state
+    void copy(SnakeState s) {
+        tick = s.tick;
+        bodyParts = s.bodyParts;
+        // The segments and the cell the tail just left, unless a snake filling
+        // the whole board has left none
+        int n = Math.min(bodyParts + 1, s.x.length);
+        if (x.length < n) {
+            x = Arrays.copyOf(x, Math.min(Math.max(n, x.length * 2), s.x.length));
+            y = Arrays.copyOf(y, x.length);
+        }
+        short[] sx = s.x;
+        short[] sy = s.y;
+        for (int i = 0, seg = s.head; i < n; i++) {
+            x[i] = sx[seg];
+            y[i] = sy[seg];
+            if (++seg == sx.length)
+                seg = 0;
+        }
+
+        appleX = s.appleX;
+        appleY = s.appleY;
+        obstacleCount = s.obstacleCount;
+        if (obstacleX.length < obstacleCount) {
+            obstacleX = new int[s.obstacleX.length];
+            obstacleY = new int[s.obstacleY.length];
+        }
+        System.arraycopy(s.obstacleX, 0, obstacleX, 0, obstacleCount);
+        System.arraycopy(s.obstacleY, 0, obstacleY, 0, obstacleCount);
+        Entities es = s.entities;
+        entityTop = es.top;
+        if (entityKind.length < entityTop) {
+            entityKind = new byte[es.kind.length];
+            entityX = new int[es.x.length];
+            entityY = new int[es.y.length];
+        }
+        System.arraycopy(es.kind, 0, entityKind, 0, entityTop);
+        System.arraycopy(es.x, 0, entityX, 0, entityTop);
+        System.arraycopy(es.y, 0, entityY, 0, entityTop);
+        won = s.won;
+    }
+}
@@ -0,0 +1,60 @@
+package snake;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Frame timings for one rendering path, so the Swing repaint path and the active
+// BufferStrategy path can be compared on the same game. For each frame it keeps
+// how long drawing it took, and how long it was from the frame being asked for
+// (a tick, a key on the menu) to it being handed to the screen. Samples go into
+// fixed rings of the most recent frames, so recording allocates nothing.
+final class FrameStats {
+    static final int SAMPLES = 4096;
+
+    private final String name;
+    private final AtomicLong requestedAt = new AtomicLong(); // oldest unserved request, 0 if none
+    private final long[] draw = new long[SAMPLES];
+    private final long[] latency = new long[SAMPLES];
+    private long frames;
+
+    FrameStats(String name) {
+        this.name = name;
+    }
+
+    // Notes that a frame is wanted. Requests made before the next frame is drawn
+    // are served by it, so its latency is measured from the first of them.
+    void request() {
+        requestedAt.compareAndSet(0, System.nanoTime());
+    }
+
+    // Takes the pending request's time, or 0 if no frame has been asked for
+    long takeRequest() {
+        return requestedAt.getAndSet(0);
+    }
+
+    boolean requested() {
+        return requestedAt.get() != 0;
+    }
+
+    synchronized void record(long drawNanos, long latencyNanos) {
+        int i = (int) (frames++ % SAMPLES);
+        draw[i] = drawNanos;
+        latency[i] = latencyNanos;
+    }
+
+    synchronized void clear() {
+        frames = 0;
+    }
+
+    @Override
+    public synchronized String toString() {
+        int n = (int) Math.min(frames, SAMPLES);
+        if (n == 0)
+            return name + ": no frames";
+        BatchSimulator.Distribution d = BatchSimulator.Distribution.of(Arrays.copyOf(draw, n));
+        BatchSimulator.Distribution l = BatchSimulator.Distribution.of(Arrays.copyOf(latency, n));
+        return String.format("%s: %d frames, draw p50 %.2f p99 %.2f max %.2f ms,"
+                + " request to screen p50 %.2f p99 %.2f max %.2f ms",
+                name, frames, d.p50 / 1e6, d.p99 / 1e6, d.max / 1e6, l.p50 / 1e6, l.p99 / 1e6, l.max / 1e6);
+    }
+}
@@ -0,0 +1,38 @@
+package snake;
+
+// A pluggable set of rules layered on the shared SnakeEngine tick. Modes are
+// stateless singletons found through ServiceLoader (see GameModes); everything
+// a game needs lives in its SnakeState, so one instance serves every engine.
+//
+// Each engine holds exactly one mode and makes one call into it per hook each
+// tick, in place of a switch over every mode's rules. The JIT profiles those
+// call sites across every engine in the JVM, so a process playing one mode gets
+// them inlined, and one playing several pays a virtual call per hook per tick.
+public interface GameMode {
+    // Stable id used on the command line and in saved data, e.g. "CLASSIC"
+    String name();
+
+    // Label shown in the menu, e.g. "Classic"
+    String title();
+
+    // Whether the snake reappears on the opposite side instead of dying at walls
+    default boolean wraps() {
+        return false;
+    }
+
+    // Places this mode's extra pieces after the snake and first apple are down
+    default void reset(SnakeEngine engine) {
+    }
+
+    // Called after every apple, once the score and speed have been updated
+    default void onApple(SnakeEngine engine) {
+    }
+
+    // The rest of the tick once the snake has moved and eaten. Returns EVENT_* flags.
+    int tick(SnakeEngine engine);
+
+    // Extra HUD line for this mode (shown bottom right), or null for none
+    default String status(SnakeState state) {
+        return null;
+    }
+}
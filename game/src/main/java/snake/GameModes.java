@@ -0,0 +1,36 @@
+package snake;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+
+// Every GameMode on the class path, in the order META-INF/services/snake.GameMode
+// lists them. The menu numbers modes in this order.
+public final class GameModes {
+    private static final List<GameMode> ALL = load();
+
+    private GameModes() {
+    }
+
+    private static List<GameMode> load() {
+        List<GameMode> modes = new ArrayList<>();
+        for (GameMode mode : ServiceLoader.load(GameMode.class)) {
+            modes.add(mode);
+        }
+        return Collections.unmodifiableList(modes);
+    }
+
+    public static List<GameMode> all() {
+        return ALL;
+    }
+
+    // Looks a mode up by its id, ignoring case
+    public static GameMode named(String name) {
+        for (GameMode mode : ALL) {
+            if (mode.name().equalsIgnoreCase(name))
+                return mode;
+        }
+        throw new IllegalArgumentException("Unknown game mode: " + name);
+    }
+}
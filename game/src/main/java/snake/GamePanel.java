@@ -0,0 +1,1096 @@
+package snake;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+class GamePanel extends JPanel implements Runnable {
+    // Screen and grid settings. The default board is SCREEN_WIDTH / UNIT_SIZE
+    // cells across; any other gets cells as big as fit the screen, down to
+    // MIN_UNIT pixels, and a board too big even for that is shown through a view
+    // that scrolls to follow the head.
+    static final int SCREEN_WIDTH = 800;
+    static final int SCREEN_HEIGHT = 800;
+    static final int UNIT_SIZE = 25;
+    static final int MIN_UNIT = 10;
+    final int unit;               // pixels per cell
+    final int viewCols, viewRows; // cells in view
+    final int width, height;      // pixels in view
+    private int viewX, viewY;     // game thread: the board cell in the view's top-left corner
+
+    // Game loop settings
+    Thread gameThread; // plays every game, started by the first request
+    private final AtomicReference<GameRequest> pending = new AtomicReference<>();
+    private volatile boolean stopped;
+    volatile int gamesStarted; // written by the game thread only, as is the first
+    long startLatency;         // frame's lag behind its request
+    static final int MAX_TICKS_PER_FRAME = 5;
+    static final long MAX_FRAME_NANOS = 250_000_000L;
+    final long framePeriod = displayFramePeriod();
+    boolean interpolate = true;      // smooth motion between ticks at display refresh
+    volatile float renderAlpha = 0f; // fraction of the next tick already elapsed
+
+    // Game states and modes
+    private enum GameState {
+        MENU, PLAYING, GAMEOVER
+    }
+
+    private volatile GameState gameState = GameState.MENU;
+    private GameMode selectedMode = GameModes.all().get(0); // default mode
+
+    // The bot that plays new games in place of the keyboard, or null for none.
+    // It presses its turns into the input queue on the game thread, so while it
+    // plays the arrow keys are ignored, the queue having room for one producer,
+    // and a game it ends starts over after ATTRACT_RESTART_MS, for attract mode.
+    Autopilot autopilot;
+    private volatile SnakePolicy pilot; // the game being played's bot, or null
+    static final int ATTRACT_RESTART_MS = 3000;
+
+    volatile boolean paused = false;
+    volatile boolean running = false;
+
+    // Rendering paths: by default this panel paints through Swing; with an
+    // ActiveView attached, that canvas's own thread draws every frame instead
+    ActiveView activeView;
+    final FrameStats stats = new FrameStats("repaint");
+    final MyKeyAdapter keys = new MyKeyAdapter();
+
+    // The rules and board live in the engine; this panel only drives and draws it
+    final SnakeEngine engine;
+    final SnakeState state;
+    final InputQueue input = new InputQueue(16); // turns from the keyboard, one taken per tick
+    final Audio audio = Audio.open();
+
+    // Every game played is recorded to a replay file and added to the archive of
+    // all games; a replay being watched steers the snake in place of the keyboard
+    static final Path SAVE_DIR = Paths.get(System.getProperty("snake.home",
+            System.getProperty("user.home") + File.separator + ".snake"));
+    // Timings printed after every game, for comparing rendering paths and bots
+    static final boolean PRINT_STATS = Boolean.getBoolean("snake.stats");
+    boolean recordReplays = true;
+    private ReplayWriter recorder;
+    private SnakePolicy playback;
+    private double playbackSpeed = 1.0;
+    final Leaderboard leaderboard = Leaderboard.load(SAVE_DIR.resolve("scores.dat"));
+    int highScore = 0; // best of the mode being played
+    private long seed;
+    private int rank = -1; // place on the mode's leaderboard of the game just over
+
+    // Timer for elapsed time
+    long startTime;
+    long elapsedTime; // seconds
+
+    // Drawing resources, created once rather than on every frame
+    static final Font TITLE_FONT = new Font("Ink Free", Font.BOLD, 50);
+    static final Font MENU_FONT = new Font("Ink Free", Font.BOLD, 30);
+    static final Font HUD_FONT = new Font("Ink Free", Font.BOLD, 25);
+    static final Font OVER_FONT = new Font("Ink Free", Font.BOLD, 75);
+    static final Font OVER_TEXT_FONT = new Font("Ink Free", Font.BOLD, 40);
+    static final Color BODY_COLOR = new Color(45, 180, 0);
+    // fillOval builds a new shape on every call; the round items are stamped
+    // from images drawn once, a cell across, instead. Entities are stamped by
+    // kind, the square ones too, so drawing any of them is the same call.
+    final Image appleSprite;
+    final Image[] entitySprites = new Image[Entities.KINDS];
+
+    // On-screen text, rebuilt and re-measured only when the value shown changes
+    private final HudLabel titleLabel = new HudLabel("Multi-Mode Snake Game", getFontMetrics(TITLE_FONT));
+    private final HudLabel selectLabel = new HudLabel("Select Game Mode:", getFontMetrics(MENU_FONT));
+    private final HudLabel[] modeLabels = new HudLabel[GameModes.all().size()];
+    private final HudLabel autopilotLabel = new HudLabel((GameModes.all().size() + 1) + ": Autopilot: ", "",
+            getFontMetrics(MENU_FONT));
+    private final HudLabel startLabel = new HudLabel("Press ENTER to Start", getFontMetrics(MENU_FONT));
+    private final HudLabel selectedLabel = new HudLabel("Selected Mode: ", "", getFontMetrics(MENU_FONT));
+    private final HudLabel bestLabel = new HudLabel("Best: ", "", getFontMetrics(MENU_FONT));
+    private final HudLabel scoreLabel = new HudLabel("Score: ", "", getFontMetrics(HUD_FONT));
+    private final HudLabel highScoreLabel = new HudLabel("High Score: ", "", getFontMetrics(HUD_FONT));
+    private final HudLabel timeLabel = new HudLabel("Time: ", "s", getFontMetrics(HUD_FONT));
+    private final HudLabel modeLabel = new HudLabel("Mode: ", "", getFontMetrics(HUD_FONT));
+    private final HudLabel statusLabel = new HudLabel("", "", getFontMetrics(HUD_FONT));
+    private final HudLabel overLabel = new HudLabel("Game Over", getFontMetrics(OVER_FONT));
+    private final HudLabel winLabel = new HudLabel("You Win!", getFontMetrics(OVER_FONT));
+    private final HudLabel finalScoreLabel = new HudLabel("Score: ", "", getFontMetrics(OVER_TEXT_FONT));
+    private final HudLabel rankLabel = new HudLabel("New #", " score!", getFontMetrics(OVER_TEXT_FONT));
+    private final HudLabel restartLabel = new HudLabel("Press R to Restart", getFontMetrics(OVER_TEXT_FONT));
+    private final HudLabel menuLabel = new HudLabel("Press ESC for Menu", getFontMetrics(OVER_TEXT_FONT));
+
+    // The labels drawn over the board while playing, and where each was last
+    // drawn into the back-buffer
+    private final HudLabel[] hud = { scoreLabel, highScoreLabel, timeLabel, modeLabel, statusLabel };
+    private final FontMetrics hudMetrics = getFontMetrics(HUD_FONT);
+    private final String[] hudDrawn = new String[hud.length];
+    private final int[] hudDrawnX = new int[hud.length];
+    private final int[] hudDrawnWidth = new int[hud.length];
+
+    // What renderers draw: a copy of the game taken by the game thread after each
+    // tick and display refresh, and published with one atomic swap. The engine
+    // itself is only ever touched by the game thread, so nothing is locked.
+    private final TripleBuffer<Frame> frames = new TripleBuffer<>(
+            new Frame(hud.length), new Frame(hud.length), new Frame(hud.length));
+
+    // Incremental rendering of the PLAYING screen. Each back-buffer keeps the
+    // frame last drawn into it, and each new frame patches only the cells that
+    // changed since: those under the head and tail, items that appeared, moved or
+    // went, and HUD text whose value changed. Swing then copies out just that
+    // region. There are three buffers, so the game thread draws into one while
+    // Swing copies out another; the one drawn into was last drawn a few frames
+    // ago, so it is patched with the cells of those frames too, which the
+    // history below keeps.
+    private final TripleBuffer<Board> boards = new TripleBuffer<>(new Board(), new Board(), new Board());
+    static final int HISTORY = 4;         // frames of patched cells remembered
+    static final int HISTORY_CELLS = 256; // a frame that patched more is treated as redrawn
+    private final int[][] patched = new int[HISTORY][HISTORY_CELLS];
+    private final int[] patchedCount = new int[HISTORY]; // -1 where the frame was redrawn in full
+    private long boardFrames; // frames rendered so far; Board.frame counts in these
+    volatile boolean fullRedraw = true;
+    boolean tailMoved; // false after a tick that grew the snake, so the tail stayed put
+    // Dirty cells are numbered within the view, not the board
+    private final int[] dirty;
+    private final boolean[] dirtyMark;
+    private int dirtyCount;
+    private int dirtyMinX, dirtyMinY, dirtyMaxX, dirtyMaxY;
+    private int drawnViewX, drawnViewY;
+    private final int[] drawnEnds = new int[4];  // head, neck, tail and vacated cells
+    private int drawnApple;
+    private int[] drawnEntityCells = new int[0]; // by slot, -1 if empty
+    private byte[] drawnEntityKinds = new byte[0];
+    private int drawnEntityTop;
+    private long drawnTick;
+    private int drawnBodyParts;
+
+    public GamePanel() {
+        this(SCREEN_WIDTH / UNIT_SIZE, SCREEN_HEIGHT / UNIT_SIZE);
+    }
+
+    public GamePanel(int cols, int rows) {
+        engine = new SnakeEngine(cols, rows);
+        state = engine.state();
+        unit = Math.max(MIN_UNIT, Math.min(SCREEN_WIDTH / cols, SCREEN_HEIGHT / rows));
+        viewCols = Math.min(cols, SCREEN_WIDTH / unit);
+        viewRows = Math.min(rows, SCREEN_HEIGHT / unit);
+        width = viewCols * unit;
+        height = viewRows * unit;
+        dirty = new int[viewCols * viewRows];
+        dirtyMark = new boolean[viewCols * viewRows];
+        appleSprite = roundSprite(Color.red, unit);
+        entitySprites[Entities.BONUS] = roundSprite(Color.yellow, unit);
+        entitySprites[Entities.SHIELD] = squareSprite(Color.blue, unit);
+        entitySprites[Entities.ENEMY] = squareSprite(Color.magenta, unit);
+        entitySprites[Entities.POTION] = roundSprite(Color.green, unit);
+
+        setPreferredSize(new Dimension(width, height));
+        setBackground(Color.black);
+        setFocusable(true);
+        // Enable double buffering for smoother rendering
+        setDoubleBuffered(true);
+        addKeyListener(keys);
+
+        List<GameMode> modes = GameModes.all();
+        for (int i = 0; i < modes.size(); i++) {
+            modeLabels[i] = new HudLabel((i + 1) + ": " + modes.get(i).title(), getFontMetrics(MENU_FONT));
+        }
+    }
+
+    // Initializes or resets the game
+    public void startGame() {
+        request(selectedMode, System.nanoTime(), null, autopilot, 1.0);
+    }
+
+    // Watches a recorded game, speed times as fast as it was played. Only replays
+    // of this board on the shipped rules can be shown; Replay.main checks any.
+    void startReplay(Replay replay, double speed) {
+        if (replay.cols != state.cols || replay.rows != state.rows || !replay.defaultRules())
+            throw new IllegalArgumentException("Replay is not of this board and rules; check it with snake.Replay");
+        selectedMode = GameModes.named(replay.mode);
+        request(selectedMode, replay.seed, replay.policy(), null, speed);
+    }
+
+    // Asks the game thread for a new game, steered by the keyboard and recorded,
+    // by a bot, or by a replay's turns. One thread plays every game this panel shows: it is
+    // started by the first request and from then on parks between games. A request
+    // made while a game is still going ends that game first, so restarting never
+    // leaves two loops stepping the same engine. Only the game thread resets the
+    // engine; callers hand it what to play and return at once.
+    private void request(GameMode mode, long seed, SnakePolicy replay, Autopilot bot, double speed) {
+        if (stopped)
+            throw new IllegalStateException("The game loop has been stopped");
+        pending.set(new GameRequest(mode, seed, replay, bot, speed, System.nanoTime()));
+        synchronized (pending) {
+            if (gameThread == null) {
+                gameThread = new Thread(this, "Snake game loop");
+                gameThread.setDaemon(true);
+                gameThread.start();
+            }
+        }
+        LockSupport.unpark(gameThread);
+    }
+
+    // What the game thread should play next
+    private static final class GameRequest {
+        final GameMode mode;
+        final long seed;
+        final SnakePolicy replay;
+        final Autopilot bot;
+        final double speed;
+        final long requested; // System.nanoTime() of the request
+
+        GameRequest(GameMode mode, long seed, SnakePolicy replay, Autopilot bot, double speed, long requested) {
+            this.mode = mode;
+            this.seed = seed;
+            this.replay = replay;
+            this.bot = bot;
+            this.speed = speed;
+            this.requested = requested;
+        }
+    }
+
+    // Pauses or resumes; a paused loop is parked indefinitely until this wakes it
+    void togglePause() {
+        paused = !paused;
+        LockSupport.unpark(gameThread);
+    }
+
+    // Ends the game thread for good, once it has begun any game already
+    // requested, and waits for it to finish
+    void stop() throws InterruptedException {
+        stopped = true;
+        Thread thread;
+        synchronized (pending) {
+            thread = gameThread;
+        }
+        if (thread != null) {
+            LockSupport.unpark(thread);
+            thread.join();
+        }
+    }
+
+    // The game thread: parks until a game is requested, plays it, and goes back
+    // to waiting, until stop()
+    public void run() {
+        while (true) {
+            GameRequest next = pending.getAndSet(null);
+            if (next != null) {
+                begin(next);
+                loop();
+                end();
+            } else if (stopped) {
+                return;
+            } else {
+                LockSupport.park(this);
+            }
+        }
+    }
+
+    // Game thread: resets everything for the requested game and shows its first frame
+    private void begin(GameRequest game) {
+        input.clear(); // keys left over from the last game
+        engine.reset(game.mode, game.seed);
+        seed = game.seed;
+        highScore = leaderboard.best(game.mode.name());
+        rank = -1;
+        playback = game.replay;
+        playbackSpeed = game.speed;
+        pilot = game.bot != null ? game.bot.policy(engine.rules) : null;
+        // Only the player's own games are recorded and scored
+        recorder = game.replay == null && pilot == null && recordReplays
+                ? new ReplayWriter(replayFile(game.mode, game.seed), SAVE_DIR.resolve("archive"), game.mode,
+                        engine.rules, state.cols, state.rows, game.seed)
+                : null;
+        renderAlpha = 0f;
+        tailMoved = false;
+        paused = false;
+        running = true;
+        gameState = GameState.PLAYING;
+        startTime = System.currentTimeMillis();
+        elapsedTime = 0;
+        fullRedraw = true;
+        renderFrame();
+        gamesStarted++;
+        startLatency = System.nanoTime() - game.requested;
+    }
+
+    // Game thread: closes the recording of a game cut short by another request or
+    // stop(), and with -Dsnake.stats reports on the game
+    private void end() {
+        if (running) {
+            running = false;
+            if (recorder != null)
+                recorder.finish(state, (System.currentTimeMillis() - startTime) / 1000);
+        }
+        FrameStats frames = activeView != null ? activeView.stats : stats;
+        if (PRINT_STATS)
+            printStats(frames);
+        frames.clear();
+    }
+
+    // One line per game each for input and frames, to compare the rendering
+    // paths, one for a Monte Carlo bot's searches, and one for the loop itself
+    private void printStats(FrameStats frames) {
+        System.out.println(input);
+        System.out.println(frames);
+        if (pilot instanceof MonteCarloPolicy)
+            System.out.println(pilot);
+        if (audio.dropped() > 0)
+            System.out.println("audio: " + audio.dropped() + " events dropped");
+        System.out.printf("loop: game %d on %s, first frame %.3f ms after the request, %d threads%n",
+                gamesStarted, Thread.currentThread().getName(), startLatency / 1e6, Thread.activeCount());
+    }
+
+    // replays/<date>-<time>-<MODE>-<seed>.snkr under SAVE_DIR
+    private static Path replayFile(GameMode mode, long seed) {
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+        return SAVE_DIR.resolve("replays").resolve(stamp + "-" + mode.name() + "-" + Long.toHexString(seed) + ".snkr");
+    }
+
+    // The fixed time step game loop. Elapsed wall time is banked in an accumulator
+    // and spent in whole ticks of state.updateInterval, so how many ticks a game
+    // gets depends only on how long it ran, never on the frame rate. With
+    // interpolation on, the thread wakes once per display refresh and repaints with
+    // renderAlpha set to how far it is into the next tick; with it off, it parks
+    // until the next tick is due and repaints only after one. Either way a paused
+    // loop parks with no deadline at all. A new request or stop() ends it early.
+    private void loop() {
+        long previous = System.nanoTime();
+        long nextFrame = previous;
+        long accumulator = 0;
+        while (running && pending.get() == null && !stopped) {
+            if (paused) {
+                LockSupport.park(this);
+                previous = System.nanoTime();
+                nextFrame = previous;
+                continue;
+            }
+            long now = System.nanoTime();
+            // A long stall (debugger, laptop sleep) banks at most MAX_FRAME_NANOS
+            accumulator += (long) (Math.min(now - previous, MAX_FRAME_NANOS) * playbackSpeed);
+            previous = now;
+
+            int ticks = 0;
+            while (running && accumulator >= state.updateInterval) {
+                if (ticks == MAX_TICKS_PER_FRAME * (int) Math.ceil(playbackSpeed)) {
+                    // Too far behind to catch up: drop the backlog rather than
+                    // spiral into ever longer bursts of overdue ticks
+                    accumulator %= state.updateInterval;
+                    break;
+                }
+                tick();
+                accumulator -= state.updateInterval;
+                ticks++;
+            }
+
+            if (interpolate) {
+                renderAlpha = running ? (float) accumulator / state.updateInterval : 0f;
+                renderFrame();
+                nextFrame += framePeriod;
+                if (nextFrame < now) {
+                    nextFrame = now + framePeriod;
+                }
+                // May wake early (unpark, spurious wake-up); the loop re-checks
+                LockSupport.parkNanos(this, nextFrame - now);
+            } else {
+                if (ticks > 0)
+                    renderFrame();
+                LockSupport.parkNanos(this, (long) ((state.updateInterval - accumulator) / playbackSpeed));
+            }
+        }
+    }
+
+    // Advances the engine by one tick and reacts to what happened
+    private void tick() {
+        int parts = state.bodyParts;
+        SnakeEngine.Direction turn;
+        if (playback != null) {
+            turn = playback.next(state);
+        } else {
+            if (pilot != null) {
+                SnakeEngine.Direction press = pilot.next(state);
+                if (press != null)
+                    input.offer(press, System.nanoTime());
+            }
+            turn = input.poll(state.direction);
+        }
+        if (turn != null && recorder != null)
+            recorder.turn(state.tick + 1, turn);
+        int events = engine.step(turn);
+        tailMoved = state.bodyParts == parts;
+        audio.play(events);
+        boolean scored = playback == null && pilot == null;
+        if (scored && state.applesEaten > highScore)
+            highScore = state.applesEaten;
+        if (!state.alive) {
+            gameState = GameState.GAMEOVER;
+            running = false;
+            long seconds = (System.currentTimeMillis() - startTime) / 1000;
+            if (recorder != null)
+                recorder.finish(state, seconds);
+            if (scored)
+                rank = leaderboard.submit(state.mode.name(), state.applesEaten, state.tick, seconds,
+                        System.currentTimeMillis(), seed);
+            if (pilot != null)
+                attractRestart();
+        }
+        elapsedTime = (System.currentTimeMillis() - startTime) / 1000;
+    }
+
+    // Plays the bot's next game once the game over screen has been up a while,
+    // unless the player has gone back to the menu or started another game first
+    private void attractRestart() {
+        int game = gamesStarted;
+        Timer timer = new Timer(ATTRACT_RESTART_MS, e -> {
+            if (gameState == GameState.GAMEOVER && gamesStarted == game)
+                startGame();
+        });
+        timer.setRepeats(false);
+        timer.start();
+    }
+
+    // Frame period of the default screen, falling back to 60 Hz when the refresh
+    // rate is unknown or there is no screen at all
+    private static long displayFramePeriod() {
+        int hz = 0;
+        if (!GraphicsEnvironment.isHeadless()) {
+            hz = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDisplayMode().getRefreshRate();
+        }
+        if (hz == DisplayMode.REFRESH_RATE_UNKNOWN)
+            hz = 60;
+        return 1_000_000_000L / hz;
+    }
+
+    // Pixel coordinate of a segment that moved from cell "from" to cell "to" over
+    // the last tick, alpha of the way along, in a view starting at cell "view". A
+    // jump of more than one cell is a wrap across the board edge and snaps rather
+    // than sliding across the board.
+    private int lerp(int from, int to, int view, float alpha) {
+        int d = to - from;
+        if (d < -1 || d > 1)
+            return (to - view) * unit;
+        return Math.round((from - view + d * alpha) * unit);
+    }
+
+    @Override
+    public void paintComponent(Graphics g) {
+        long requested = stats.takeRequest();
+        long start = System.nanoTime();
+        paintScreen(g);
+        if (requested != 0) {
+            long end = System.nanoTime();
+            stats.record(end - start, end - requested);
+        }
+    }
+
+    private void paintScreen(Graphics g) {
+        if (gameState == GameState.PLAYING) {
+            // While playing the newest back-buffer already holds the frame; copy
+            // it out, clipped by Swing to the region renderFrame() asked for. If
+            // the video memory behind it was lost, draw the frame instead and
+            // have the buffer redrawn in full next time it is drawn into.
+            Board board = boards.latest();
+            if (board.image != null && (!(board.image instanceof VolatileImage)
+                    || ((VolatileImage) board.image).validate(getGraphicsConfiguration()) == VolatileImage.IMAGE_OK)) {
+                g.drawImage(board.image, 0, 0, null);
+                return;
+            }
+            board.frame = -1;
+        }
+        super.paintComponent(g);
+        draw(g);
+    }
+
+    // Draws the whole current screen from scratch, for an ActiveView whose
+    // buffers keep nothing from one frame to the next
+    void drawFrame(Graphics g) {
+        g.setColor(Color.black);
+        g.fillRect(0, 0, width, height);
+        draw(g);
+    }
+
+    // Has the menu drawn again. The menu has no game in it and touches no
+    // frame, so any thread may ask; the EDT does after a menu key.
+    void showMenu() {
+        if (activeView != null) {
+            activeView.requestFrame();
+        } else {
+            stats.request();
+            repaint();
+        }
+    }
+
+    // Publishes a frame of the game and has it shown. Game thread only: it is
+    // the only thread that steps the engine, so a frame never holds half a tick,
+    // and the only writer the frames' TripleBuffer allows.
+    void renderFrame() {
+        if (gameState == GameState.MENU) {
+            showMenu();
+            return;
+        }
+        Frame f = frames.back();
+        capture(f);
+        frames.publish();
+        // f now belongs to the renderers, but none of them writes to it, and the
+        // game thread will not get it back before its next publish()
+        if (activeView != null) {
+            activeView.requestFrame();
+        } else if (f.over) {
+            stats.request();
+            repaint();
+        } else {
+            renderBoard(f);
+        }
+    }
+
+    // Copies what the screen shows into a frame, settling the view and the HUD
+    // text on the way
+    private void capture(Frame f) {
+        f.over = gameState == GameState.GAMEOVER;
+        f.alpha = renderAlpha;
+        f.tailMoved = tailMoved;
+        f.copy(state);
+        viewX = scroll(viewX, state.headX(), viewCols, state.cols);
+        viewY = scroll(viewY, state.headY(), viewRows, state.rows);
+        f.viewX = viewX;
+        f.viewY = viewY;
+        updateHud();
+        for (int i = 0; i < hud.length; i++) {
+            f.hudText[i] = hud[i].text();
+            f.hudX[i] = hudX(i);
+        }
+        if (f.over) {
+            f.finalScore = finalScoreLabel.set(state.applesEaten).text();
+            f.finalScoreWidth = finalScoreLabel.width();
+            f.rank = rank >= 0 ? rankLabel.set(rank + 1).text() : null;
+            f.rankWidth = rankLabel.width();
+        }
+    }
+
+    // Where a view of size cells along a board side should start: where it is,
+    // unless the head has come within a quarter of the view of its edge, and then
+    // centred on the head. A view that takes in the whole side never moves.
+    private static int scroll(int view, int head, int size, int side) {
+        int margin = size / 4;
+        if (head - view < margin || head - view >= size - margin)
+            view = head - size / 2;
+        return Math.max(0, Math.min(view, side - size));
+    }
+
+    // Brings a back-buffer up to date with the frame, publishes it and asks Swing
+    // to copy out the part that changed. Frame cost depends on how many cells
+    // changed, not on the length of the snake.
+    private void renderBoard(Frame f) {
+        Board board = boards.back();
+        Graphics g = boardGraphics(board);
+        long n = ++boardFrames;
+        int h = (int) (n % HISTORY);
+        dirtyCount = 0;
+        dirtyMinX = dirtyMinY = Integer.MAX_VALUE;
+        dirtyMaxX = dirtyMaxY = -1;
+
+        boolean scrolled = f.viewX != drawnViewX || f.viewY != drawnViewY;
+        drawnViewX = f.viewX;
+        drawnViewY = f.viewY;
+
+        boolean redraw;
+        if (fullRedraw || scrolled || f.tick - drawnTick > 1 || Math.abs(f.bodyParts - drawnBodyParts) > 1) {
+            // A restart, a scroll, bonus growth or several ticks since the last
+            // frame: too much has moved to patch, so start over
+            fullRedraw = false;
+            patchedCount[h] = -1;
+            recordEnds(drawnEnds);
+            drawnApple = state.cellAt(state.appleX, state.appleY);
+            recordEntities();
+            for (int i = 0; i < hud.length; i++) {
+                recordHud(i);
+            }
+            redraw = true;
+        } else {
+            markChanges();
+            if (dirtyCount <= HISTORY_CELLS) {
+                System.arraycopy(dirty, 0, patched[h], 0, dirtyCount);
+                patchedCount[h] = dirtyCount;
+            } else {
+                patchedCount[h] = -1;
+            }
+            // Add what changed in the frames since this buffer was last drawn,
+            // unless they are too many or one of them was redrawn in full
+            redraw = board.frame < 0 || n - board.frame > HISTORY;
+            for (long k = board.frame + 1; !redraw && k < n; k++) {
+                int j = (int) (k % HISTORY);
+                redraw = patchedCount[j] < 0;
+                for (int i = 0; !redraw && i < patchedCount[j]; i++) {
+                    markView(patched[j][i]);
+                }
+            }
+        }
+
+        if (redraw) {
+            g.setColor(Color.black);
+            g.fillRect(0, 0, width, height);
+            draw(g, f);
+            stats.request();
+            repaint();
+        } else if (dirtyCount > 0) {
+            patch(g, f);
+            // Swing merges the repaint requests for one component into their
+            // bounding box anyway, so ask for that box once
+            stats.request();
+            repaint(dirtyMinX * unit, dirtyMinY * unit,
+                    (dirtyMaxX - dirtyMinX + 1) * unit, (dirtyMaxY - dirtyMinY + 1) * unit);
+        }
+        for (int i = 0; i < dirtyCount; i++) {
+            dirtyMark[dirty[i]] = false;
+        }
+        board.frame = n;
+        boards.publish();
+        drawnTick = f.tick;
+        drawnBodyParts = f.bodyParts;
+    }
+
+    // Marks the cells that changed since the last frame, and records the ends,
+    // items and HUD text as they are now
+    private void markChanges() {
+        // The head and tail ends, both where they were drawn and where they are now
+        for (int i = 0; i < drawnEnds.length; i++) {
+            markDirty(drawnEnds[i]);
+        }
+        recordEnds(drawnEnds);
+        for (int i = 0; i < drawnEnds.length; i++) {
+            markDirty(drawnEnds[i]);
+        }
+
+        // The apple and entities that moved, appeared or went
+        int apple = state.cellAt(state.appleX, state.appleY);
+        if (apple != drawnApple) {
+            markDirty(drawnApple);
+            markDirty(apple);
+            drawnApple = apple;
+        }
+        markEntities();
+
+        // HUD text whose value changed: the cells under both the old and new text
+        for (int i = 0; i < hud.length; i++) {
+            if (hud[i].text() != hudDrawn[i]) {
+                markText(i);
+                recordHud(i);
+                markText(i);
+            }
+        }
+    }
+
+    // Redraws the marked cells, then the moving ends and text over them
+    private void patch(Graphics g, Frame f) {
+        for (int i = 0; i < dirtyCount; i++) {
+            patchCell(g, dirty[i]);
+        }
+        drawMovingEnds(g, f);
+        // Text over a patched cell was wiped with it; drawing a label again over
+        // the cells that kept it leaves the same pixels
+        g.setColor(Color.white);
+        g.setFont(HUD_FONT);
+        for (int i = 0; i < hud.length; i++) {
+            if (hudDrawn[i] != null && textDirty(i))
+                g.drawString(hudDrawn[i], hudDrawnX[i], hudY(i));
+        }
+    }
+
+    // A back-buffer and the number of the frame it holds, -1 if none or lost.
+    // Whichever thread holds the buffer in the exchange may set it.
+    private static final class Board {
+        Image image; // VolatileImage once displayable, BufferedImage before
+        Graphics graphics;
+        long frame = -1;
+    }
+
+    // The buffer's Graphics, (re)creating the buffer when there is none yet, when
+    // the panel has become displayable and can have one in video memory, or when
+    // the old one no longer fits the screen
+    private Graphics boardGraphics(Board board) {
+        if (board.image instanceof VolatileImage) {
+            int status = ((VolatileImage) board.image).validate(getGraphicsConfiguration());
+            if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                board.image.flush();
+                board.image = null;
+            } else if (status == VolatileImage.IMAGE_RESTORED) {
+                board.frame = -1;
+            }
+        } else if (board.image != null && isDisplayable()) {
+            board.image = null;
+        }
+        if (board.image == null) {
+            board.image = isDisplayable() ? createVolatileImage(width, height) : null;
+            if (board.image == null)
+                board.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            if (board.graphics != null)
+                board.graphics.dispose();
+            board.graphics = board.image.getGraphics();
+            board.frame = -1;
+        }
+        return board.graphics;
+    }
+
+    // Redraws cell v of the view from the grid: background, border, items and
+    // body, in the order draw() paints them. The head is left to
+    // drawMovingEnds(), which draws it between cells.
+    private void patchCell(Graphics g, int v) {
+        int c = (drawnViewY + v / viewCols) * state.cols + drawnViewX + v % viewCols;
+        int px = v % viewCols * unit;
+        int py = v / viewCols * unit;
+        g.setColor(Color.black);
+        g.fillRect(px, py, unit, unit);
+        g.setColor(Color.white);
+        if (px == 0)
+            g.drawLine(0, py, 0, py + unit - 1);
+        if (py == 0)
+            g.drawLine(px, 0, px + unit - 1, 0);
+        if (px + unit >= width)
+            g.drawLine(width - 1, py, width - 1, py + unit - 1);
+        if (py + unit >= height)
+            g.drawLine(px, height - 1, px + unit - 1, height - 1);
+
+        int items = state.itemCells[c];
+        if ((items & SnakeState.CELL_APPLE) != 0)
+            g.drawImage(appleSprite, px, py, null);
+        if ((items & SnakeState.CELL_OBSTACLE) != 0) {
+            g.setColor(Color.gray);
+            g.fillRect(px, py, unit, unit);
+        }
+        for (int k = 1; k < Entities.KINDS; k++) {
+            if ((items & Entities.FLAGS[k]) != 0)
+                g.drawImage(entitySprites[k], px, py, null);
+        }
+
+        int body = state.snakeCells[c];
+        if (c == state.cellAt(state.headX(), state.headY()))
+            body--;
+        if (body > 0) {
+            g.setColor(BODY_COLOR);
+            g.fillRect(px, py, unit, unit);
+        }
+    }
+
+    // Draws the head sliding from the neck cell into its own, and the tail sliding
+    // out of the cell it left, each the frame's alpha of the way through the tick.
+    // Every other segment sits on its cell.
+    private void drawMovingEnds(Graphics g, Frame f) {
+        short[] x = f.x;
+        short[] y = f.y;
+        float alpha = f.alpha;
+        if (f.tailMoved) {
+            int tail = f.bodyParts - 1;
+            int left = f.bodyParts;
+            g.setColor(BODY_COLOR);
+            g.fillRect(lerp(x[left], x[tail], f.viewX, alpha), lerp(y[left], y[tail], f.viewY, alpha), unit, unit);
+        }
+        g.setColor(Color.green);
+        g.fillRect(lerp(x[1], x[0], f.viewX, alpha), lerp(y[1], y[0], f.viewY, alpha), unit, unit);
+    }
+
+    private void recordEnds(int[] ends) {
+        ends[0] = state.cellAt(state.headX(), state.headY());
+        ends[1] = segmentCell(1);
+        ends[2] = segmentCell(state.bodyParts - 1);
+        ends[3] = segmentCell(state.bodyParts);
+    }
+
+    private int segmentCell(int i) {
+        int s = state.segment(i);
+        return state.cellAt(state.x[s], state.y[s]);
+    }
+
+    private void recordEntities() {
+        Entities es = state.entities;
+        if (drawnEntityCells.length < es.top) {
+            drawnEntityCells = new int[es.kind.length];
+            drawnEntityKinds = new byte[es.kind.length];
+        }
+        for (int e = 0; e < es.top; e++) {
+            drawnEntityKinds[e] = es.kind[e];
+            drawnEntityCells[e] = es.kind[e] == Entities.NONE ? -1 : state.cellAt(es.x[e], es.y[e]);
+        }
+        drawnEntityTop = es.top;
+    }
+
+    // Entities that moved, appeared, went or changed kind, slot by slot against
+    // what was drawn
+    private void markEntities() {
+        Entities es = state.entities;
+        if (drawnEntityCells.length < es.top) {
+            drawnEntityCells = Arrays.copyOf(drawnEntityCells, es.kind.length);
+            drawnEntityKinds = Arrays.copyOf(drawnEntityKinds, es.kind.length);
+        }
+        for (int e = drawnEntityTop; e < es.top; e++) {
+            drawnEntityCells[e] = -1;
+            drawnEntityKinds[e] = Entities.NONE;
+        }
+        for (int e = 0; e < es.top; e++) {
+            int cell = es.kind[e] == Entities.NONE ? -1 : state.cellAt(es.x[e], es.y[e]);
+            if (cell != drawnEntityCells[e] || es.kind[e] != drawnEntityKinds[e]) {
+                markDirty(drawnEntityCells[e]);
+                markDirty(cell);
+                drawnEntityCells[e] = cell;
+                drawnEntityKinds[e] = es.kind[e];
+            }
+        }
+        drawnEntityTop = es.top;
+    }
+
+    private void recordHud(int i) {
+        hudDrawn[i] = hud[i].text();
+        hudDrawnX[i] = hudX(i);
+        hudDrawnWidth[i] = hud[i].width();
+    }
+
+    // Marks every cell under HUD label i as last drawn
+    private void markText(int i) {
+        if (hudDrawn[i] == null)
+            return;
+        int x0 = Math.max(hudDrawnX[i] / unit, 0);
+        int x1 = Math.min((hudDrawnX[i] + hudDrawnWidth[i]) / unit, viewCols - 1);
+        int y0 = Math.max((hudY(i) - hudMetrics.getAscent()) / unit, 0);
+        int y1 = Math.min((hudY(i) + hudMetrics.getDescent()) / unit, viewRows - 1);
+        for (int vy = y0; vy <= y1; vy++) {
+            for (int vx = x0; vx <= x1; vx++) {
+                markView(vy * viewCols + vx);
+            }
+        }
+    }
+
+    // Whether any cell under HUD label i was patched this frame
+    private boolean textDirty(int i) {
+        int x0 = Math.max(hudDrawnX[i] / unit, 0);
+        int x1 = Math.min((hudDrawnX[i] + hudDrawnWidth[i]) / unit, viewCols - 1);
+        int y0 = Math.max((hudY(i) - hudMetrics.getAscent()) / unit, 0);
+        int y1 = Math.min((hudY(i) + hudMetrics.getDescent()) / unit, viewRows - 1);
+        for (int vy = y0; vy <= y1; vy++) {
+            for (int vx = x0; vx <= x1; vx++) {
+                if (dirtyMark[vy * viewCols + vx])
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    // Marks board cell c, if it is in view
+    private void markDirty(int c) {
+        if (c < 0)
+            return;
+        int vx = c % state.cols - drawnViewX;
+        int vy = c / state.cols - drawnViewY;
+        if (vx >= 0 && vx < viewCols && vy >= 0 && vy < viewRows)
+            markView(vy * viewCols + vx);
+    }
+
+    private void markView(int v) {
+        if (dirtyMark[v])
+            return;
+        dirtyMark[v] = true;
+        dirty[dirtyCount++] = v;
+        int vx = v % viewCols;
+        int vy = v / viewCols;
+        dirtyMinX = Math.min(dirtyMinX, vx);
+        dirtyMinY = Math.min(dirtyMinY, vy);
+        dirtyMaxX = Math.max(dirtyMaxX, vx);
+        dirtyMaxY = Math.max(dirtyMaxY, vy);
+    }
+
+    // Sets the HUD labels' values; each is rebuilt only if its value changed
+    private void updateHud() {
+        scoreLabel.set(state.applesEaten);
+        highScoreLabel.set(highScore);
+        timeLabel.set(elapsedTime);
+        modeLabel.set(state.mode.name());
+        statusLabel.set(state.mode.status(state));
+    }
+
+    // Where HUD label i goes: score centred at the top, high score and time in the
+    // top corners, mode and status in the bottom corners
+    private int hudX(int i) {
+        switch (i) {
+            case 0:
+                return (width - hud[i].width()) / 2;
+            case 2:
+            case 4:
+                return width - hud[i].width() - 10;
+            default:
+                return 10;
+        }
+    }
+
+    private int hudY(int i) {
+        return i < 3 ? HUD_FONT.getSize() : height - 10;
+    }
+
+    // Renders the screen: the menu, or else the latest published frame. Fonts,
+    // colors and every piece of text come from the caches above, so a frame
+    // allocates nothing.
+    public void draw(Graphics g) {
+        draw(g, gameState == GameState.MENU ? null : frames.latest());
+    }
+
+    private void draw(Graphics g, Frame f) {
+        // Draw a clear white border around the playing area
+        g.setColor(Color.white);
+        g.drawRect(0, 0, width - 1, height - 1);
+
+        if (f == null) {
+            // Menu screen with mode selection
+            g.setColor(Color.white);
+            g.setFont(TITLE_FONT);
+            drawCentered(g, titleLabel, height / 4);
+
+            g.setFont(MENU_FONT);
+            drawCentered(g, selectLabel, height / 4 + 50);
+            for (int i = 0; i < modeLabels.length; i++) {
+                drawCentered(g, modeLabels[i], height / 4 + 100 + i * 40);
+            }
+
+            drawCentered(g, autopilotLabel.set(autopilot != null ? autopilot.title : "Off"),
+                    height / 4 + 100 + modeLabels.length * 40);
+
+            int below = height / 4 + 140 + modeLabels.length * 40;
+            drawCentered(g, startLabel, below + 20);
+            drawCentered(g, selectedLabel.set(selectedMode.name()), below + 70);
+            drawCentered(g, bestLabel.set(leaderboard.best(selectedMode.name())), below + 110);
+
+        } else if (!f.over) {
+            int vx = f.viewX;
+            int vy = f.viewY;
+            // Draw apple
+            g.drawImage(appleSprite, (f.appleX - vx) * unit, (f.appleY - vy) * unit, null);
+
+            // Draw obstacles (OBSTACLE mode)
+            g.setColor(Color.gray);
+            for (int i = 0; i < f.obstacleCount; i++) {
+                g.fillRect((f.obstacleX[i] - vx) * unit, (f.obstacleY[i] - vy) * unit, unit, unit);
+            }
+
+            // Draw entities a kind at a time, so an enemy on a potion's cell is
+            // under it whichever slots they hold
+            for (int k = 1; k < Entities.KINDS; k++) {
+                for (int e = 0; e < f.entityTop; e++) {
+                    if (f.entityKind[e] == k)
+                        g.drawImage(entitySprites[k], (f.entityX[e] - vx) * unit, (f.entityY[e] - vy) * unit, null);
+                }
+            }
+
+            // Draw snake: every body segment in view on its cell, then the moving
+            // ends. A frame with no snake is one not yet taken, before the first game.
+            g.setColor(BODY_COLOR);
+            for (int i = 1; i < f.bodyParts; i++) {
+                int sx = f.x[i] - vx;
+                int sy = f.y[i] - vy;
+                if (sx >= 0 && sx < viewCols && sy >= 0 && sy < viewRows)
+                    g.fillRect(sx * unit, sy * unit, unit, unit);
+            }
+            if (f.bodyParts > 0)
+                drawMovingEnds(g, f);
+
+            // Draw game info: score, high score, elapsed time, game mode, and the mode's
+            // own status line (shield, health) if it has one
+            g.setColor(Color.white);
+            g.setFont(HUD_FONT);
+            for (int i = 0; i < f.hudText.length; i++) {
+                if (f.hudText[i] != null)
+                    g.drawString(f.hudText[i], f.hudX[i], hudY(i));
+            }
+        } else {
+            // Game over screen
+            g.setColor(Color.red);
+            g.setFont(OVER_FONT);
+            drawCentered(g, f.won ? winLabel : overLabel, height / 2);
+            g.setFont(OVER_TEXT_FONT);
+            if (f.rank != null)
+                g.drawString(f.rank, (width - f.rankWidth) / 2, height / 2 - 100);
+            g.drawString(f.finalScore, (width - f.finalScoreWidth) / 2, height / 2 + 50);
+            drawCentered(g, restartLabel, height / 2 + 100);
+            drawCentered(g, menuLabel, height / 2 + 150);
+        }
+    }
+
+    // A filled circle size pixels across on a transparent background
+    private static Image roundSprite(Color color, int size) {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics g = image.getGraphics();
+        g.setColor(color);
+        g.fillOval(0, 0, size, size);
+        g.dispose();
+        return image;
+    }
+
+    private static Image squareSprite(Color color, int size) {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics g = image.getGraphics();
+        g.setColor(color);
+        g.fillRect(0, 0, size, size);
+        g.dispose();
+        return image;
+    }
+
+    // Draws a label centred horizontally; the caller has already set its font
+    private void drawCentered(Graphics g, HudLabel label, int y) {
+        g.drawString(label.text(), (width - label.width()) / 2, y);
+    }
+
+    class MyKeyAdapter extends KeyAdapter {
+        @Override
+        public void keyPressed(KeyEvent e) {
+            if (gameState == GameState.MENU) {
+                // Number keys pick a mode in the order GameModes lists them; the
+                // one after the modes steps through the autopilots and back to off
+                int index = e.getKeyCode() - KeyEvent.VK_1;
+                if (index >= 0 && index < GameModes.all().size()) {
+                    selectedMode = GameModes.all().get(index);
+                    showMenu();
+                } else if (index == GameModes.all().size()) {
+                    Autopilot[] bots = Autopilot.values();
+                    int next = autopilot == null ? 0 : autopilot.ordinal() + 1;
+                    autopilot = next < bots.length ? bots[next] : null;
+                    showMenu();
+                } else if (e.getKeyCode() == KeyEvent.VK_ENTER) {
+                    startGame();
+                }
+            } else if (gameState == GameState.PLAYING) {
+                // Turns are only queued here; the game thread checks each one
+                // against the heading when it takes it. A bot's game only pauses.
+                int key = e.getKeyCode();
+                if (pilot != null && key != KeyEvent.VK_P)
+                    return;
+                switch (key) {
+                    case KeyEvent.VK_LEFT:
+                        input.offer(SnakeEngine.Direction.LEFT, System.nanoTime());
+                        break;
+                    case KeyEvent.VK_RIGHT:
+                        input.offer(SnakeEngine.Direction.RIGHT, System.nanoTime());
+                        break;
+                    case KeyEvent.VK_UP:
+                        input.offer(SnakeEngine.Direction.UP, System.nanoTime());
+                        break;
+                    case KeyEvent.VK_DOWN:
+                        input.offer(SnakeEngine.Direction.DOWN, System.nanoTime());
+                        break;
+                    case KeyEvent.VK_P:
+                        togglePause();
+                        break;
+                }
+            } else if (gameState == GameState.GAMEOVER) {
+                // R restarts the same mode immediately, ESC goes back to the menu
+                if (e.getKeyCode() == KeyEvent.VK_R) {
+                    startGame();
+                } else if (e.getKeyCode() == KeyEvent.VK_ESCAPE) {
+                    gameState = GameState.MENU;
+                    showMenu();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package snake;
+
+// The random numbers a game is dealt: java.util.Random's generator and its
+// nextInt(bound), number for number, so every seed still deals the game it
+// always has and old replays play back. Unlike Random it keeps its seed in a
+// plain field, so a copy of a game state takes its future along for the price
+// of one long, and it never pays for Random's atomic updates.
+final class GameRandom {
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    private static final long ADDEND = 0xBL;
+    private static final long MASK = (1L << 48) - 1;
+
+    private long seed;
+
+    void setSeed(long seed) {
+        this.seed = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    void copyFrom(GameRandom other) {
+        seed = other.seed;
+    }
+
+    private int next(int bits) {
+        seed = seed * MULTIPLIER + ADDEND & MASK;
+        return (int) (seed >>> 48 - bits);
+    }
+
+    // Uniform in [0, bound), as Random.nextInt(bound) gives it
+    int nextInt(int bound) {
+        int r = next(31);
+        int m = bound - 1;
+        if ((bound & m) == 0)
+            return (int) (bound * (long) r >> 31);
+        // Draws that would favour the low numbers are drawn again
+        int u = r;
+        while (u - (r = u % bound) + m < 0)
+            u = next(31);
+        return r;
+    }
+
+    long nextLong() {
+        return ((long) next(32) << 32) + next(32);
+    }
+}
@@ -0,0 +1,39 @@
+package snake;
+
+// Heads straight for the apple, preferring whichever legal move gets closest,
+// and refuses to step into a wall, an obstacle, the enemy or its own body while
+// any other move is open. Cheap and short-sighted: it happily traps itself.
+public class GreedyPolicy implements SnakePolicy {
+    static final byte BLOCKING = SnakeState.CELL_BLOCKING;
+
+    @Override
+    public SnakeEngine.Direction next(SnakeState s) {
+        SnakeEngine.Direction best = null;
+        int bestDistance = Integer.MAX_VALUE;
+        for (SnakeEngine.Direction d : SnakeEngine.Direction.values()) {
+            if (d == s.direction.opposite())
+                continue;
+            int c = s.cellAhead(d);
+            if (c < 0 || s.snakeCells[c] > 0 || (s.itemCells[c] & BLOCKING) != 0)
+                continue;
+            int distance = distance(s, c % s.cols, c / s.cols, s.appleX, s.appleY);
+            // Ties keep the current heading, which avoids needless zig-zags
+            if (distance < bestDistance || (distance == bestDistance && d == s.direction)) {
+                best = d;
+                bestDistance = distance;
+            }
+        }
+        return best;
+    }
+
+    // Manhattan distance, measured around the edges in WRAP mode
+    static int distance(SnakeState s, int x1, int y1, int x2, int y2) {
+        int dx = Math.abs(x1 - x2);
+        int dy = Math.abs(y1 - y2);
+        if (s.wrap) {
+            dx = Math.min(dx, s.cols - dx);
+            dy = Math.min(dy, s.rows - dy);
+        }
+        return dx + dy;
+    }
+}
@@ -0,0 +1,74 @@
+package snake;
+
+// Follows a Hamiltonian cycle through every cell of the board, which on its own
+// never runs into itself and fills the whole board, and cuts across it toward
+// the apple while the snake is short enough for that to be safe. The cycle is a
+// formula, not a table, so it costs nothing to set up and every decision is a
+// few sums over the head's neighbours, whatever the board's size.
+//
+// The cycle is the one the benchmarks lay snakes along: row 0 runs right, the
+// other rows snake back and forth over columns 1 and up, and column 0 leads back
+// up. It needs an even number of rows; with an odd number it is turned on its
+// side, and with both sides odd there is no cycle and SafePolicy plays instead.
+// A step blocked by an obstacle or enemy falls back to SafePolicy for that tick,
+// so only boards without them are sure to be filled.
+public class HamiltonPolicy implements SnakePolicy {
+    // Shortcuts stay this many cells short of the tail, room for the growth an
+    // apple or bonus fruit brings on
+    static final int PADDING = 4;
+    private static final SnakeEngine.Direction[] DIRECTIONS = SnakeEngine.Direction.values();
+
+    private final SafePolicy fallback = new SafePolicy();
+
+    @Override
+    public SnakeEngine.Direction next(SnakeState s) {
+        if (s.cols % 2 != 0 && s.rows % 2 != 0)
+            return fallback.next(s);
+        int cells = s.cells;
+        int head = order(s, s.headX(), s.headY());
+        int tail = SafePolicy.tailCell(s);
+        int toTail = ahead(head, order(s, tail % s.cols, tail / s.cols), cells);
+        int toApple = ahead(head, order(s, s.appleX, s.appleY), cells);
+        // Shortcuts only while the snake fills under half the board; past that
+        // the cycle alone is quick enough and never risks a trap
+        boolean cutting = s.bodyParts < cells / 2;
+        SnakeEngine.Direction best = null;
+        int bestAhead = 0;
+        for (SnakeEngine.Direction d : DIRECTIONS) {
+            if (d == s.direction.opposite())
+                continue;
+            int c = s.cellAhead(d);
+            if (c < 0 || !SafePolicy.open(s, c, tail))
+                continue;
+            int n = ahead(head, order(s, c % s.cols, c / s.cols), cells);
+            if (n != 1 && !(cutting && n <= toApple && n < toTail - PADDING))
+                continue;
+            if (n > bestAhead) {
+                best = d;
+                bestAhead = n;
+            }
+        }
+        return best != null ? best : fallback.next(s);
+    }
+
+    // How many steps along the cycle cell position "to" is after position "from"
+    static int ahead(int from, int to, int cells) {
+        int n = to - from;
+        return n < 0 ? n + cells : n;
+    }
+
+    // Cell (cx, cy)'s position along the board's cycle
+    static int order(SnakeState s, int cx, int cy) {
+        return s.rows % 2 == 0 ? order(s.cols, s.rows, cx, cy) : order(s.rows, s.cols, cy, cx);
+    }
+
+    // Position along the cycle of a board with an even number of rows
+    static int order(int cols, int rows, int cx, int cy) {
+        if (cy == 0)
+            return cx;
+        if (cx == 0) // column 0, climbing back to the start
+            return cols + (rows - 1) * (cols - 1) + rows - 1 - cy;
+        int row = cols + (cy - 1) * (cols - 1);
+        return cy % 2 == 1 ? row + cols - 1 - cx : row + cx - 1;
+    }
+}
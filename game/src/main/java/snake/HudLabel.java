@@ -0,0 +1,62 @@
+package snake;
+
+import java.awt.FontMetrics;
+
+// One line of on-screen text of the form prefix + value + suffix. The string is
+// built, and measured in its font, only when the value changes, so drawing the
+// same score or time again frame after frame allocates nothing.
+final class HudLabel {
+    private final String prefix;
+    private final String suffix;
+    private final FontMetrics metrics;
+
+    private long number = Long.MIN_VALUE;
+    private Object value;
+    private String text;
+    private int width;
+
+    HudLabel(String prefix, String suffix, FontMetrics metrics) {
+        this.prefix = prefix;
+        this.suffix = suffix;
+        this.metrics = metrics;
+    }
+
+    // A fixed string with no value part
+    HudLabel(String text, FontMetrics metrics) {
+        this("", "", metrics);
+        set(text);
+    }
+
+    // Sets a numeric value; returns this for chaining into text()/width()
+    HudLabel set(long number) {
+        if (text == null || value != null || number != this.number) {
+            this.number = number;
+            this.value = null;
+            update(prefix + number + suffix);
+        }
+        return this;
+    }
+
+    // Sets a string value. Compared by identity: the strings shown here are
+    // constants (mode names, status lines), so identity is equality.
+    HudLabel set(String value) {
+        if (text == null || value != this.value) {
+            this.value = value;
+            update(value == null ? null : prefix + value + suffix);
+        }
+        return this;
+    }
+
+    private void update(String text) {
+        this.text = text;
+        width = text == null ? 0 : metrics.stringWidth(text);
+    }
+
+    String text() {
+        return text;
+    }
+
+    int width() {
+        return width;
+    }
+}
@@ -0,0 +1,87 @@
+package snake;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Turns on their way from the keyboard to the game loop: a lock-free ring buffer
+// with one producer (the event dispatch thread) and one consumer (the game
+// thread). Every press is queued with the time it arrived and each tick takes at
+// most one turn, so presses quicker than the tick rate play out over the next
+// ticks in order instead of overwriting each other. Turns are checked against the
+// heading when they are taken, not when they are pressed, so RIGHT then UP then
+// LEFT inside one tick turns up and then left rather than reversing into the neck.
+final class InputQueue {
+    private static final SnakeEngine.Direction[] DIRECTIONS = SnakeEngine.Direction.values();
+
+    private final byte[] turns;
+    private final long[] times;
+    private final int mask;
+    // Each index is written by one side only; lazySet publishes the slot written
+    // before it without a full fence
+    private final AtomicLong head = new AtomicLong(); // next slot to read, consumer's
+    private final AtomicLong tail = new AtomicLong(); // next slot to write, producer's
+
+    // Press-to-tick latency of the most recent turns taken; consumer only
+    private final long[] latency = new long[FrameStats.SAMPLES];
+    private long taken;
+
+    // The capacity must be a power of two
+    InputQueue(int capacity) {
+        if (Integer.bitCount(capacity) != 1)
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        turns = new byte[capacity];
+        times = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    // Producer side: queues a turn pressed at the given System.nanoTime(). Returns
+    // false, dropping the turn, when the queue is full.
+    boolean offer(SnakeEngine.Direction turn, long time) {
+        long t = tail.get();
+        if (t - head.get() == turns.length)
+            return false;
+        int i = (int) t & mask;
+        turns[i] = (byte) turn.ordinal();
+        times[i] = time;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    // Consumer side: the first queued turn that changes the given heading, or null
+    // if there is none. Repeats of the heading and reversals ahead of it are
+    // discarded; turns behind it stay queued for the following ticks.
+    SnakeEngine.Direction poll(SnakeEngine.Direction heading) {
+        long h = head.get();
+        long t = tail.get();
+        while (h < t) {
+            int i = (int) h & mask;
+            SnakeEngine.Direction turn = DIRECTIONS[turns[i]];
+            long time = times[i];
+            h++;
+            if (turn != heading && turn != heading.opposite()) {
+                head.lazySet(h);
+                latency[(int) (taken++ % latency.length)] = System.nanoTime() - time;
+                return turn;
+            }
+        }
+        head.lazySet(h);
+        return null;
+    }
+
+    // Consumer side: drops whatever is queued, such as keys pressed before a restart
+    void clear() {
+        head.lazySet(tail.get());
+        taken = 0;
+    }
+
+    // Consumer side: press-to-tick latency of the turns taken since clear()
+    @Override
+    public String toString() {
+        int n = (int) Math.min(taken, latency.length);
+        if (n == 0)
+            return "input: no turns";
+        BatchSimulator.Distribution d = BatchSimulator.Distribution.of(Arrays.copyOf(latency, n));
+        return String.format("input: %d turns, press to tick p50 %.2f p99 %.2f max %.2f ms",
+                taken, d.p50 / 1e6, d.p99 / 1e6, d.max / 1e6);
+    }
+}
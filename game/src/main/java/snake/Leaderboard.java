@@ -0,0 +1,260 @@
+package snake;
+
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// The best TOP_N games of each mode, kept across runs. The whole board is a few
+// hundred bytes, so it is read in one go at startup and rewritten whole after a
+// game makes it: to a temporary file that is forced to disk and then renamed over
+// the old one, so a crash leaves either the old board or the new one, never half
+// of each. Writes run on ReplayWriter's background thread and the game thread only
+// updates the tables in memory.
+//
+// The file (big-endian, varints as in Replay):
+//   "SNKS", format version byte, varint number of modes
+//   per mode: its name (length byte, UTF-8), a varint entry count, and per entry,
+//     best first, score, ticks and seconds played as varints, then the date
+//     (epoch milliseconds) and seed as 8 bytes each
+//   CRC-32 of everything before it, as 4 bytes
+final class Leaderboard {
+    static final int MAGIC = 0x534E4B53; // "SNKS"
+    static final int VERSION = 1;
+    static final int TOP_N = 10;
+
+    // One mode's entries, best first; ties keep the earlier game ahead
+    static final class Table {
+        final String mode;
+        int count;
+        final int[] score = new int[TOP_N];
+        final long[] ticks = new long[TOP_N];
+        final long[] seconds = new long[TOP_N];
+        final long[] date = new long[TOP_N];
+        final long[] seed = new long[TOP_N];
+
+        Table(String mode) {
+            this.mode = mode;
+        }
+
+        // Puts a game in its place and returns that place, or -1 if it does not
+        // make the table; a game that scored nothing never does
+        int insert(int score, long ticks, long seconds, long date, long seed) {
+            if (score <= 0)
+                return -1;
+            int rank = count;
+            while (rank > 0 && this.score[rank - 1] < score)
+                rank--;
+            if (rank == TOP_N)
+                return -1;
+            int moved = Math.min(count, TOP_N - 1) - rank;
+            System.arraycopy(this.score, rank, this.score, rank + 1, moved);
+            System.arraycopy(this.ticks, rank, this.ticks, rank + 1, moved);
+            System.arraycopy(this.seconds, rank, this.seconds, rank + 1, moved);
+            System.arraycopy(this.date, rank, this.date, rank + 1, moved);
+            System.arraycopy(this.seed, rank, this.seed, rank + 1, moved);
+            this.score[rank] = score;
+            this.ticks[rank] = ticks;
+            this.seconds[rank] = seconds;
+            this.date[rank] = date;
+            this.seed[rank] = seed;
+            count = Math.min(count + 1, TOP_N);
+            return rank;
+        }
+    }
+
+    private final Path file;
+    private final Map<String, Table> tables = new LinkedHashMap<>();
+    private boolean dirty; // changed since the last save was encoded
+
+    private Leaderboard(Path file) {
+        this.file = file;
+    }
+
+    // Reads the board from the file, or starts an empty one if there is none yet.
+    // A damaged file is reported and set aside rather than trusted or overwritten.
+    static Leaderboard load(Path file) {
+        Leaderboard board = new Leaderboard(file);
+        byte[] bytes;
+        // Plain java.io rather than Files: its classes are loaded with the JVM,
+        // and at startup loading NIO's costs more than reading the file
+        try (InputStream in = new FileInputStream(file.toFile())) {
+            bytes = in.readAllBytes();
+        } catch (FileNotFoundException e) {
+            return board;
+        } catch (IOException e) {
+            System.err.println("Could not read high scores " + file + ": " + e);
+            return board;
+        }
+        try {
+            board.decode(ByteBuffer.wrap(bytes));
+        } catch (IOException e) {
+            board.tables.clear();
+            Path aside = file.resolveSibling(file.getFileName() + ".bad");
+            System.err.println("Ignoring damaged high scores " + file + " (" + e.getMessage() + "), moved to " + aside);
+            try {
+                Files.move(file, aside, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException moveFailed) {
+                System.err.println("Could not move " + file + ": " + moveFailed);
+            }
+        }
+        return board;
+    }
+
+    private void decode(ByteBuffer in) throws IOException {
+        try {
+            if (in.remaining() < 4)
+                throw new IOException("too short");
+            CRC32 crc = new CRC32();
+            crc.update(in.array(), 0, in.limit() - 4);
+            if ((int) crc.getValue() != in.getInt(in.limit() - 4))
+                throw new IOException("checksum mismatch");
+            in.limit(in.limit() - 4);
+            if (in.getInt() != MAGIC)
+                throw new IOException("not a high score file");
+            int version = in.get();
+            if (version != VERSION)
+                throw new IOException("unsupported version " + version);
+            for (int modes = (int) Replay.getVarLong(in); modes > 0; modes--) {
+                Table table = table(Replay.getString(in));
+                for (int n = (int) Replay.getVarLong(in); n > 0; n--) {
+                    int score = (int) Replay.getVarLong(in);
+                    long ticks = Replay.getVarLong(in);
+                    long seconds = Replay.getVarLong(in);
+                    table.insert(score, ticks, seconds, in.getLong(), in.getLong());
+                }
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("truncated");
+        }
+    }
+
+    private Table table(String mode) {
+        Table table = tables.get(mode);
+        if (table == null) {
+            table = new Table(mode);
+            tables.put(mode, table);
+        }
+        return table;
+    }
+
+    // The best score played in the mode, 0 if it has never been played
+    synchronized int best(String mode) {
+        Table table = tables.get(mode);
+        return table == null || table.count == 0 ? 0 : table.score[0];
+    }
+
+    // A copy of the mode's table, for showing it
+    synchronized Table top(String mode) {
+        Table copy = new Table(mode);
+        Table table = tables.get(mode);
+        for (int i = 0; table != null && i < table.count; i++) {
+            copy.insert(table.score[i], table.ticks[i], table.seconds[i], table.date[i], table.seed[i]);
+        }
+        return copy;
+    }
+
+    // Records a finished game and returns its place on the mode's board, or -1 if
+    // it did not make it. A game that does is saved in the background; the caller
+    // never waits on the disk.
+    int submit(String mode, int score, long ticks, long seconds, long date, long seed) {
+        int rank;
+        synchronized (this) {
+            rank = table(mode).insert(score, ticks, seconds, date, seed);
+            if (rank < 0)
+                return -1;
+            dirty = true;
+        }
+        ReplayWriter.execute(this::save);
+        return rank;
+    }
+
+    // Writer thread only. Games submitted while an earlier save was queued are all
+    // written by whichever save runs first, and the rest find nothing to do.
+    private void save() {
+        ByteBuffer out;
+        synchronized (this) {
+            if (!dirty)
+                return;
+            dirty = false;
+            out = encode();
+        }
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            Files.createDirectories(file.getParent());
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                channel.force(true);
+            }
+            try {
+                Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            // Still correct in memory; the next game that makes the board retries
+            synchronized (this) {
+                dirty = true;
+            }
+            System.err.println("Could not save high scores " + file + ": " + e);
+        }
+    }
+
+    private ByteBuffer encode() {
+        int size = 9;
+        for (Table table : tables.values()) {
+            size += 1 + table.mode.length() * 3 + 5 + table.count * (3 * 10 + 16);
+        }
+        ByteBuffer out = ByteBuffer.allocate(size + 4);
+        out.putInt(MAGIC).put((byte) VERSION);
+        Replay.putVarLong(out, tables.size());
+        for (Table table : tables.values()) {
+            Replay.putString(out, table.mode);
+            Replay.putVarLong(out, table.count);
+            for (int i = 0; i < table.count; i++) {
+                Replay.putVarLong(out, table.score[i]);
+                Replay.putVarLong(out, table.ticks[i]);
+                Replay.putVarLong(out, table.seconds[i]);
+                out.putLong(table.date[i]).putLong(table.seed[i]);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(out.array(), 0, out.position());
+        out.putInt((int) crc.getValue());
+        out.flip();
+        return out;
+    }
+
+    // Prints the board: java -cp snake-game.jar snake.Leaderboard [FILE]
+    public static void main(String[] args) {
+        Path file = args.length > 0 ? Paths.get(args[0]) : GamePanel.SAVE_DIR.resolve("scores.dat");
+        long start = System.nanoTime();
+        Leaderboard board = load(file);
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%s loaded in %.3f ms%n", file, elapsed / 1e6);
+        for (GameMode mode : GameModes.all()) {
+            Table table = board.top(mode.name());
+            System.out.println(mode.name());
+            for (int i = 0; i < table.count; i++) {
+                System.out.printf("  %2d. %5d  %7d ticks  %5ds  %s  seed %x%n", i + 1, table.score[i],
+                        table.ticks[i], table.seconds[i], Instant.ofEpochMilli(table.date[i]), table.seed[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package snake;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Looks ahead by playing the game out. Every tick it runs as many simulated
+// futures as fit in its time box, each on a copy of the state: down a tree of
+// the turns tried so far, picking them by UCB1, then on with a slightly random
+// GreedyPolicy for ROLLOUT_TICKS more. The first move whose futures did best
+// on average is the one it makes. It is what survives the obstacles, bonus
+// timers and Rogue enemies that greedy play runs into.
+//
+// One search per thread of a fork-join pool, each with its own engine and tree,
+// runs until the deadline, and their results for each first move are pooled.
+// Every future deals its own apples and enemy spawns, from a seed of the
+// search's, so the bot plans for the game as it might go, not the one the
+// game's seed has in store. A copy costs under a microsecond on the default
+// board but grows with it, so past MAX_CELLS cells SafePolicy plays instead.
+public class MonteCarloPolicy implements SnakePolicy {
+    static final int MAX_CELLS = 1 << 16;
+    static final int SEARCH_SHARE = 4;      // of each tick's updateInterval, the rest left to the game
+    static final int ROLLOUT_TICKS = 32;    // played greedily past the tree's last turn
+    static final int MAX_DEPTH = 64;        // turns down the tree before a rollout goes greedy regardless
+    static final int MAX_NODES = 1 << 16;   // per search; a full tree stops growing, not searching
+    static final double EXPLORATION = 0.25; // UCB1's weight on trying the less tried turns
+    static final int RANDOM_TURNS = 4;      // one rollout turn in this many is a random open one
+    static final double DISCOUNT = 0.95;    // a point a tick later is worth this much of one now
+    private static final SnakeEngine.Direction[] DIRECTIONS = SnakeEngine.Direction.values();
+
+    final SnakeRules rules;
+    final ForkJoinPool pool;
+    final long budgetNanos; // the most a decision may take, however slow the ticks
+    private final SafePolicy fallback = new SafePolicy();
+    private final GreedyPolicy greedy = new GreedyPolicy(); // keeps no state, so the searches share it
+    private Search[] searches; // made on the first decision, for the board it is on
+    long seed = System.nanoTime(); // search i's futures are dealt from seed + i; fixed by tests
+
+    // Metrics, game thread only: decisions made and the futures played for them
+    long decisions;
+    long rollouts;
+    long searchNanos;
+    int lastRollouts;
+    int lastNodes; // the first search's tree, at the last decision
+
+    public MonteCarloPolicy(SnakeRules rules) {
+        this(rules, ForkJoinPool.commonPool(), Long.MAX_VALUE);
+    }
+
+    public MonteCarloPolicy(SnakeRules rules, ForkJoinPool pool, long budgetNanos) {
+        this.rules = rules;
+        this.pool = pool;
+        this.budgetNanos = budgetNanos;
+    }
+
+    @Override
+    public SnakeEngine.Direction next(SnakeState s) {
+        if (s.cells > MAX_CELLS)
+            return fallback.next(s);
+        if (searches == null) {
+            searches = new Search[pool.getParallelism()];
+            for (int i = 0; i < searches.length; i++) {
+                searches[i] = new Search(new SnakeEngine(s.cols, s.rows, rules), seed + i);
+            }
+        }
+        long start = System.nanoTime();
+        long deadline = start + Math.min(budgetNanos, s.updateInterval / SEARCH_SHARE);
+        // The game thread waits here, so the searches can read s unlocked
+        pool.invoke(new Searches(s, deadline, 0, searches.length));
+        searchNanos += System.nanoTime() - start;
+
+        // The first move whose futures averaged best over all the searches
+        SnakeEngine.Direction best = null;
+        double bestMean = -1;
+        int played = 0;
+        for (SnakeEngine.Direction d : DIRECTIONS) {
+            long visits = 0;
+            double total = 0;
+            for (Search search : searches) {
+                int c = search.child[d.ordinal()];
+                if (c != 0) {
+                    visits += search.visits[c];
+                    total += search.total[c];
+                }
+            }
+            if (visits > 0 && total / visits > bestMean) {
+                best = d;
+                bestMean = total / visits;
+            }
+        }
+        for (Search search : searches) {
+            played += search.played;
+        }
+        decisions++;
+        rollouts += played;
+        lastRollouts = played;
+        lastNodes = searches[0].nodes;
+        return best != null ? best : fallback.next(s);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("mcts: %d decisions on %d threads, %.0f rollouts each (last %d, %d nodes), %.1f ms each",
+                decisions, searches != null ? searches.length : 0, rollouts / (double) Math.max(decisions, 1),
+                lastRollouts, lastNodes, searchNanos / 1e6 / Math.max(decisions, 1));
+    }
+
+    // Splits the searches in halves until each task runs one, as BatchSimulator
+    // splits its games
+    final class Searches extends RecursiveAction {
+        final SnakeState root;
+        final long deadline;
+        final int from;
+        final int to;
+
+        Searches(SnakeState root, long deadline, int from, int to) {
+            this.root = root;
+            this.deadline = deadline;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new Searches(root, deadline, from, mid), new Searches(root, deadline, mid, to));
+                return;
+            }
+            searches[from].run(root, deadline);
+        }
+    }
+
+    // One thread's search: its engine to play futures on and its tree of the
+    // turns tried. Node 0 is the root; node n's child for direction d is
+    // child[n * 4 + d.ordinal()], 0 while untried, and its futures' rewards
+    // add up to total[n] over visits[n] of them.
+    final class Search {
+        final SnakeEngine engine;
+        final GameRandom random = new GameRandom();
+        int[] child = new int[4 * 1024];
+        int[] visits = new int[1024];
+        double[] total = new double[1024];
+        int nodes;
+        int played;
+        private final int[] path = new int[MAX_DEPTH + 1];
+        private final SnakeEngine.Direction[] open = new SnakeEngine.Direction[3];
+        private double points; // the rollout's points so far, discounted by when they came
+        private double weight; // what a point on the next tick is worth
+
+        Search(SnakeEngine engine, long seed) {
+            this.engine = engine;
+            random.setSeed(seed);
+        }
+
+        // Plays futures from root until the deadline, on a fresh tree
+        void run(SnakeState root, long deadline) {
+            Arrays.fill(child, 0, nodes * 4, 0);
+            nodes = 1;
+            visits[0] = 0;
+            total[0] = 0;
+            played = 0;
+            do {
+                rollout(root);
+                played++;
+            } while (System.nanoTime() < deadline);
+        }
+
+        private void rollout(SnakeState root) {
+            SnakeState s = engine.state;
+            s.copyFrom(root);
+            s.random.setSeed(random.nextLong());
+            long start = s.tick;
+            int health = s.health;
+            points = 0;
+            weight = 1;
+            int node = 0;
+            int depth = 0;
+            path[0] = 0;
+            // Down the tree to a turn not tried yet, which becomes a node
+            while (s.alive && depth < MAX_DEPTH) {
+                int d = select(node, s);
+                step(s, DIRECTIONS[d]);
+                int next = child[node * 4 + d];
+                if (next == 0) {
+                    next = expand(node, d);
+                    if (next != 0)
+                        path[++depth] = next;
+                    break;
+                }
+                node = next;
+                path[++depth] = node;
+            }
+            // and on from there greedily
+            for (int t = 0; t < ROLLOUT_TICKS && s.alive; t++) {
+                step(s, rolloutTurn(s));
+            }
+            // The apple still to get counts too, as if got as soon as it could be
+            if (s.alive)
+                points += weight * Math.pow(DISCOUNT, GreedyPolicy.distance(s, s.headX(), s.headY(), s.appleX, s.appleY));
+            double reward = reward(s, s.tick - start, points, health - s.health);
+            for (int i = 0; i <= depth; i++) {
+                visits[path[i]]++;
+                total[path[i]] += reward;
+            }
+        }
+
+        private void step(SnakeState s, SnakeEngine.Direction turn) {
+            int score = s.applesEaten;
+            engine.step(turn);
+            points += (s.applesEaten - score) * weight;
+            weight *= DISCOUNT;
+        }
+
+        // The turn from node with the best UCB1 score, untried ones first, out
+        // of those that don't step straight into a wall, body or obstacle
+        // unless every one does. Returns the direction's ordinal.
+        private int select(int node, SnakeState s) {
+            int tail = SafePolicy.tailCell(s);
+            int best = -1;
+            double bestScore = Double.NEGATIVE_INFINITY;
+            double log = Math.log(Math.max(visits[node], 1));
+            for (int pass = 0; pass < 2 && best < 0; pass++) {
+                for (SnakeEngine.Direction d : DIRECTIONS) {
+                    if (d == s.direction.opposite())
+                        continue;
+                    int c = s.cellAhead(d);
+                    if (pass == 0 && (c < 0 || !SafePolicy.open(s, c, tail)))
+                        continue;
+                    int n = child[node * 4 + d.ordinal()];
+                    if (n == 0)
+                        return d.ordinal();
+                    double score = total[n] / visits[n] + EXPLORATION * Math.sqrt(log / visits[n]);
+                    if (score > bestScore) {
+                        best = d.ordinal();
+                        bestScore = score;
+                    }
+                }
+            }
+            return best;
+        }
+
+        // Adds node's child for direction d; 0 once the tree is full
+        private int expand(int node, int d) {
+            if (nodes == MAX_NODES)
+                return 0;
+            if (nodes == visits.length) {
+                int size = nodes * 2;
+                child = Arrays.copyOf(child, size * 4);
+                visits = Arrays.copyOf(visits, size);
+                total = Arrays.copyOf(total, size);
+            }
+            int n = nodes++;
+            visits[n] = 0;
+            total[n] = 0;
+            child[node * 4 + d] = n;
+            return n;
+        }
+
+        // GreedyPolicy's turn, or now and then a random open one, so the futures
+        // of one first move aren't all the same
+        private SnakeEngine.Direction rolloutTurn(SnakeState s) {
+            if (random.nextInt(RANDOM_TURNS) != 0)
+                return greedy.next(s);
+            int tail = SafePolicy.tailCell(s);
+            int count = 0;
+            for (SnakeEngine.Direction d : DIRECTIONS) {
+                int c = s.cellAhead(d);
+                if (d != s.direction.opposite() && c >= 0 && SafePolicy.open(s, c, tail))
+                    open[count++] = d;
+            }
+            return count > 0 ? open[random.nextInt(count)] : null;
+        }
+    }
+
+    // How good a future was, from 0 to 1: any survivor beats any death, the
+    // longer-lived of two deaths is the better, and among survivors the more
+    // points, the sooner they came, and the less health lost the better
+    static double reward(SnakeState s, long ticks, double points, int healthLost) {
+        if (s.won)
+            return 1;
+        if (!s.alive)
+            return 0.25 * Math.min(ticks, MAX_DEPTH + ROLLOUT_TICKS) / (MAX_DEPTH + ROLLOUT_TICKS);
+        double value = 0.5 + 0.5 * points / (points + 1) - 0.05 * healthLost;
+        return Math.max(value, 0.3);
+    }
+}
@@ -0,0 +1,19 @@
+package snake;
+
+// Classic rules plus obstacleCount fixed obstacles; a shield absorbs one hit
+public class ObstacleMode extends ClassicMode {
+    @Override
+    public String name() {
+        return "OBSTACLE";
+    }
+
+    @Override
+    public String title() {
+        return "Obstacle";
+    }
+
+    @Override
+    public void reset(SnakeEngine engine) {
+        engine.generateObstacles();
+    }
+}
@@ -0,0 +1,229 @@
+package snake;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+// A recorded game. The engine is deterministic given its mode, rules, board size
+// and seed, so a replay keeps only those and the turns taken, never the board,
+// and playing the turns back on a fresh engine reproduces the game exactly.
+//
+// The file, as ReplayWriter writes it (big-endian, varints are unsigned LEB128):
+//   "SNKR", format version byte
+//   mode name as a length byte and UTF-8, cols and rows as varints, seed as 8 bytes
+//   rules that differ from the defaults: a varint count, then each one's name
+//     (length byte, UTF-8) and value (zigzag varint)
+//   one varint per turn: ticks since the previous turn << 2 | Direction ordinal.
+//     Every tick takes at most one turn, so the gap is never 0
+//   0, ending the turns
+//   footer: ticks played and score as varints, then 1 if the game was won
+// A file cut off before its footer, by a crash say, still plays up to its last turn.
+// Version 1 files predate enemyChase and are read with it off, as they were played.
+final class Replay {
+    static final int MAGIC = 0x534E4B52; // "SNKR"
+    static final int VERSION = 2;
+
+    private static final SnakeEngine.Direction[] DIRECTIONS = SnakeEngine.Direction.values();
+
+    final String mode;
+    final int cols;
+    final int rows;
+    final long seed;
+    final SnakeRules rules;
+    final long[] turnTicks; // the tick each turn was taken on, counting from 1
+    final byte[] turns;     // Direction ordinals
+    final int turnCount;
+    final long ticks;       // from the footer, -1 if the file has none
+    final int score;
+    final boolean won;
+
+    private Replay(String mode, int cols, int rows, long seed, SnakeRules rules,
+            long[] turnTicks, byte[] turns, int turnCount, long ticks, int score, boolean won) {
+        this.mode = mode;
+        this.cols = cols;
+        this.rows = rows;
+        this.seed = seed;
+        this.rules = rules;
+        this.turnTicks = turnTicks;
+        this.turns = turns;
+        this.turnCount = turnCount;
+        this.ticks = ticks;
+        this.score = score;
+        this.won = won;
+    }
+
+    static Replay read(Path file) throws IOException {
+        return read(ByteBuffer.wrap(Files.readAllBytes(file)));
+    }
+
+    // Reads a replay from the buffer's position onwards, leaving the position
+    // after it
+    static Replay read(ByteBuffer in) throws IOException {
+        try {
+            if (in.getInt() != MAGIC)
+                throw new IOException("Not a replay");
+            int version = in.get();
+            if (version < 1 || version > VERSION)
+                throw new IOException("Unsupported replay version " + version);
+            String mode = getString(in);
+            int cols = (int) getVarLong(in);
+            int rows = (int) getVarLong(in);
+            long seed = in.getLong();
+            SnakeRules rules = new SnakeRules();
+            if (version == 1)
+                rules.enemyChase = 0;
+            // Rules the engine could not play, or a board it could not make, are
+            // a damaged or doctored file, never a game to play back
+            try {
+                for (int n = (int) getVarLong(in); n > 0; n--) {
+                    String name = getString(in);
+                    long v = getVarLong(in);
+                    rules.set(name, (int) ((v >>> 1) ^ -(v & 1)));
+                }
+                if (cols < 1 || rows < 1 || cols > SnakeState.MAX_SIDE || rows > SnakeState.MAX_SIDE)
+                    throw new IllegalArgumentException("board " + cols + "x" + rows);
+                rules.check(cols, rows);
+                GameModes.named(mode);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Bad replay rules: " + e.getMessage());
+            }
+
+            long[] turnTicks = new long[64];
+            byte[] turns = new byte[64];
+            int count = 0;
+            long tick = 0;
+            try {
+                while (in.hasRemaining()) {
+                    long v = getVarLong(in);
+                    if (v == 0) {
+                        long ticks = getVarLong(in);
+                        int score = (int) getVarLong(in);
+                        boolean won = in.get() != 0;
+                        return new Replay(mode, cols, rows, seed, rules, turnTicks, turns, count, ticks, score, won);
+                    }
+                    if (count == turns.length) {
+                        turnTicks = Arrays.copyOf(turnTicks, count * 2);
+                        turns = Arrays.copyOf(turns, count * 2);
+                    }
+                    tick += v >>> 2;
+                    turnTicks[count] = tick;
+                    turns[count++] = (byte) (v & 3);
+                }
+            } catch (BufferUnderflowException e) {
+                // Cut off mid-turn or mid-footer: keep the whole turns read so far
+            }
+            return new Replay(mode, cols, rows, seed, rules, turnTicks, turns, count, -1, 0, false);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Truncated replay header");
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Bad replay: " + e.getMessage());
+        }
+    }
+
+    // Whether the replay was played on the shipped rules
+    boolean defaultRules() {
+        SnakeRules defaults = new SnakeRules();
+        for (String name : SnakeRules.NAMES) {
+            if (rules.get(name) != defaults.get(name))
+                return false;
+        }
+        return true;
+    }
+
+    // The recorded turns as a policy, for playing the replay on an engine. Each
+    // policy keeps its own place, so one replay can be played any number of times.
+    SnakePolicy policy() {
+        return new SnakePolicy() {
+            private int next;
+
+            @Override
+            public SnakeEngine.Direction next(SnakeState state) {
+                long tick = state.tick + 1;
+                while (next < turnCount && turnTicks[next] < tick)
+                    next++;
+                if (next < turnCount && turnTicks[next] == tick)
+                    return DIRECTIONS[turns[next++]];
+                return null;
+            }
+        };
+    }
+
+    // Plays the whole replay headless, as fast as the engine goes, and returns the
+    // engine at the end. A replay without a footer stops after its last turn.
+    SnakeEngine play() {
+        SnakeEngine engine = new SnakeEngine(cols, rows, rules);
+        engine.reset(GameModes.named(mode), seed);
+        SnakeState s = engine.state();
+        SnakePolicy turns = policy();
+        long end = ticks >= 0 ? ticks : turnCount == 0 ? 0 : turnTicks[turnCount - 1];
+        while (s.alive && s.tick < end) {
+            engine.step(turns.next(s));
+        }
+        return engine;
+    }
+
+    // Whether playing the replay gives the ticks, score and result its footer
+    // claims; false for a replay without one
+    boolean verify() {
+        if (ticks < 0)
+            return false;
+        SnakeState s = play().state();
+        return s.tick == ticks && s.applesEaten == score && s.won == won;
+    }
+
+    static void putString(ByteBuffer out, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.put((byte) bytes.length).put(bytes);
+    }
+
+    static String getString(ByteBuffer in) {
+        byte[] bytes = new byte[in.get() & 0xFF];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void putVarLong(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    static long getVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0;; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0)
+                return value;
+        }
+    }
+
+    // Checks replay files headless: java -cp snake-game.jar snake.Replay FILE...
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.err.println("usage: Replay FILE...");
+            System.exit(2);
+        }
+        boolean allVerified = true;
+        for (String arg : args) {
+            Replay replay = read(Paths.get(arg));
+            long start = System.nanoTime();
+            boolean verified = replay.verify();
+            long elapsed = System.nanoTime() - start;
+            allVerified &= verified;
+            System.out.printf("%s: %s seed %d, %d turns, %d ticks, score %d%s, %s in %.1f ms%n",
+                    arg, replay.mode, replay.seed, replay.turnCount, replay.ticks, replay.score,
+                    replay.won ? " (won)" : "",
+                    replay.ticks < 0 ? "no footer" : verified ? "verified" : "MISMATCH", elapsed / 1e6);
+        }
+        if (!allVerified)
+            System.exit(1);
+    }
+}
@@ -0,0 +1,455 @@
+package snake;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Every replay ever recorded, in one append-only archive that is read through
+// memory maps. Replays are stored back to back in segment files of up to
+// SEGMENT_SIZE bytes, and a fixed-width index entry per game records where its
+// bytes are along with what an analyst searches on: mode, score, length in ticks,
+// time played and date. Nothing is deserialised to search: the queries below run
+// over the mapped index, and replay(i) hands out a slice of the mapped segment
+// for Replay.read to parse in place.
+//
+//   index.dat     header: "SNKI", version, entry count (long), padded to 64 bytes
+//                 entries: ENTRY_SIZE bytes each, in the order games were added
+//   segment-N.dat for each replay, its length (int) and then its bytes
+//
+// Entries go in date order, which append() enforces, so dates are searched by
+// bisection; score and length
+// orders are built from the index when asked for. The index is one mapping, so
+// it holds up to 2 GB of entries, some 33 million games. One process appends at a time,
+// holding a lock on the index; any number may read. Games are appended in memory
+// and made durable by commit(), which forces their bytes and index entries to
+// disk before the count that covers them, so a crash loses at most the games
+// added since the last commit.
+final class ReplayArchive implements Closeable {
+    static final int MAGIC = 0x534E4B49; // "SNKI"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int ENTRY_SIZE = 64;
+    static final int SEGMENT_SIZE = 64 << 20;
+    static final int MODE_BYTES = 16;
+
+    // Entry layout
+    private static final int DATE = 0;     // long, epoch milliseconds
+    private static final int SEED = 8;     // long
+    private static final int TICKS = 16;   // long
+    private static final int SCORE = 24;   // int
+    private static final int SECONDS = 28; // int, time played
+    private static final int SEGMENT = 32; // int
+    private static final int OFFSET = 36;  // int, of the replay bytes in the segment
+    private static final int LENGTH = 40;  // int
+    private static final int WON = 44;     // byte
+    private static final int MODE = 48;    // MODE_BYTES of ASCII, zero padded
+
+    private final Path dir;
+    private final boolean writable;
+    private final FileChannel indexChannel;
+    private final FileLock lock;
+    private MappedByteBuffer index;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+    private volatile int count;
+    private int committed;
+    private int writeSegment;
+    private int writeOffset;
+
+    private ReplayArchive(Path dir, boolean writable) throws IOException {
+        this.dir = dir;
+        this.writable = writable;
+        if (writable) {
+            Files.createDirectories(dir);
+            indexChannel = FileChannel.open(dir.resolve("index.dat"), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            lock = indexChannel.tryLock();
+            if (lock == null) {
+                indexChannel.close();
+                throw new IOException("Replay archive " + dir + " is being written by another process");
+            }
+        } else {
+            indexChannel = FileChannel.open(dir.resolve("index.dat"), StandardOpenOption.READ);
+            lock = null;
+        }
+        boolean fresh = indexChannel.size() == 0;
+        mapIndex(Math.max(indexChannel.size(), HEADER_SIZE + (writable ? 4096L * ENTRY_SIZE : 0)));
+        if (fresh) {
+            if (!writable)
+                throw new IOException("Empty replay archive " + dir);
+            index.putInt(0, MAGIC).putInt(4, VERSION).putLong(8, 0);
+        } else if (index.getInt(0) != MAGIC || index.getInt(4) != VERSION) {
+            close();
+            throw new IOException("Not a replay archive index: " + dir.resolve("index.dat"));
+        }
+        count = committed = (int) index.getLong(8);
+
+        if (count > 0) {
+            int last = entry(count - 1);
+            writeSegment = index.getInt(last + SEGMENT);
+            writeOffset = index.getInt(last + OFFSET) + index.getInt(last + LENGTH);
+        }
+        for (int i = 0; i <= writeSegment && (count > 0 || writable); i++) {
+            segments.add(mapSegment(i));
+        }
+    }
+
+    // Opens the archive for appending, creating it if need be
+    static ReplayArchive open(Path dir) throws IOException {
+        return new ReplayArchive(dir, true);
+    }
+
+    // Opens the archive read-only, as it stands now
+    static ReplayArchive openForReading(Path dir) throws IOException {
+        return new ReplayArchive(dir, false);
+    }
+
+    private void mapIndex(long size) throws IOException {
+        index = indexChannel.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    private MappedByteBuffer mapSegment(int n) throws IOException {
+        Path file = dir.resolve(String.format("segment-%05d.dat", n));
+        if (writable) {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return ch.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT_SIZE);
+            }
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            return ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+        }
+    }
+
+    // Adds a finished game, its replay file's bytes and what the game panel knew
+    // about it. Other readers in this process see it at once; it lasts once
+    // committed. Its date may not be before lastDate(), or the bisection over
+    // dates would miss games.
+    void append(byte[] replay, String mode, long seed, long ticks, int score, long seconds, boolean won,
+            long dateMillis) throws IOException {
+        if (!writable)
+            throw new IllegalStateException("Replay archive opened for reading");
+        if (dateMillis < lastDate())
+            throw new IllegalArgumentException("Game dated " + Instant.ofEpochMilli(dateMillis)
+                    + " is older than the archive's last, " + Instant.ofEpochMilli(lastDate()));
+        if (replay.length + 4 > SEGMENT_SIZE)
+            throw new IOException("Replay too large for the archive: " + replay.length + " bytes");
+        if (writeOffset + 4 + replay.length > SEGMENT_SIZE) {
+            writeSegment++;
+            writeOffset = 0;
+            segments.add(mapSegment(writeSegment));
+        }
+        MappedByteBuffer segment = segments.get(writeSegment);
+        segment.putInt(writeOffset, replay.length);
+        segment.put(writeOffset + 4, replay);
+
+        int n = count;
+        if (entry(n + 1) > index.capacity())
+            mapIndex(2L * index.capacity());
+        int e = entry(n);
+        index.putLong(e + DATE, dateMillis)
+                .putLong(e + SEED, seed)
+                .putLong(e + TICKS, ticks)
+                .putInt(e + SCORE, score)
+                .putInt(e + SECONDS, (int) seconds)
+                .putInt(e + SEGMENT, writeSegment)
+                .putInt(e + OFFSET, writeOffset + 4)
+                .putInt(e + LENGTH, replay.length)
+                .put(e + WON, (byte) (won ? 1 : 0));
+        byte[] name = mode.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < MODE_BYTES; i++) {
+            index.put(e + MODE + i, i < name.length ? name[i] : 0);
+        }
+        writeOffset += 4 + replay.length;
+        count = n + 1;
+    }
+
+    // Makes every game appended so far durable
+    void commit() {
+        if (committed == count)
+            return;
+        for (int i = index.getInt(entry(committed) + SEGMENT); i <= writeSegment; i++) {
+            segments.get(i).force();
+        }
+        index.force();
+        committed = count;
+        index.putLong(8, committed);
+        index.force();
+    }
+
+    private static int entry(int i) {
+        return HEADER_SIZE + i * ENTRY_SIZE;
+    }
+
+    int size() {
+        return count;
+    }
+
+    long date(int i) {
+        return index.getLong(entry(i) + DATE);
+    }
+
+    // The date of the newest game, Long.MIN_VALUE while there are none
+    long lastDate() {
+        return count == 0 ? Long.MIN_VALUE : date(count - 1);
+    }
+
+    long seed(int i) {
+        return index.getLong(entry(i) + SEED);
+    }
+
+    long ticks(int i) {
+        return index.getLong(entry(i) + TICKS);
+    }
+
+    int score(int i) {
+        return index.getInt(entry(i) + SCORE);
+    }
+
+    int seconds(int i) {
+        return index.getInt(entry(i) + SECONDS);
+    }
+
+    boolean won(int i) {
+        return index.get(entry(i) + WON) != 0;
+    }
+
+    // Whether game i was played in the named mode; compares in place
+    boolean isMode(int i, String mode) {
+        int e = entry(i) + MODE;
+        for (int k = 0; k < MODE_BYTES; k++) {
+            int b = index.get(e + k);
+            if (k == mode.length())
+                return b == 0;
+            if (b != mode.charAt(k))
+                return false;
+        }
+        return mode.length() == MODE_BYTES;
+    }
+
+    String mode(int i) {
+        byte[] name = new byte[MODE_BYTES];
+        index.get(entry(i) + MODE, name);
+        int n = 0;
+        while (n < MODE_BYTES && name[n] != 0)
+            n++;
+        return new String(name, 0, n, StandardCharsets.US_ASCII);
+    }
+
+    // Game i's replay bytes, as a read-only view of the mapped segment
+    ByteBuffer replay(int i) {
+        int e = entry(i);
+        int offset = index.getInt(e + OFFSET);
+        return segments.get(index.getInt(e + SEGMENT))
+                .slice(offset, index.getInt(e + LENGTH))
+                .asReadOnlyBuffer();
+    }
+
+    Replay read(int i) throws IOException {
+        return Replay.read(replay(i));
+    }
+
+    // The first game added at or after the given time, or size() if none was
+    private int firstAtOrAfter(long dateMillis) {
+        int lo = 0;
+        int hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (date(mid) < dateMillis)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    // Games added in [from, to), oldest first
+    int[] between(long fromMillis, long toMillis) {
+        int lo = firstAtOrAfter(fromMillis);
+        int hi = firstAtOrAfter(toMillis);
+        int[] games = new int[Math.max(hi - lo, 0)];
+        for (int i = 0; i < games.length; i++) {
+            games[i] = lo + i;
+        }
+        return games;
+    }
+
+    // The n highest-scoring games, best first, of one mode or of all if mode is null
+    int[] topByScore(String mode, int n) {
+        return top(mode, n, true);
+    }
+
+    // The n longest games in ticks, longest first, of one mode or of all
+    int[] topByLength(String mode, int n) {
+        return top(mode, n, false);
+    }
+
+    // Keeps the n best of the matching games in a min-heap of keys packed above
+    // their game numbers, so ordering never boxes or touches a replay
+    private int[] top(String mode, int n, boolean byScore) {
+        long[] heap = new long[Math.max(n, 0)];
+        int size = 0;
+        for (int i = 0, end = count; i < end; i++) {
+            if (mode != null && !isMode(i, mode))
+                continue;
+            long value = byScore ? score(i) : Math.min(ticks(i), Integer.MAX_VALUE);
+            // Earlier games win ties
+            long key = value << 32 | (Integer.MAX_VALUE - i);
+            if (size < heap.length) {
+                heap[size] = key;
+                siftUp(heap, size++);
+            } else if (size > 0 && key > heap[0]) {
+                heap[0] = key;
+                siftDown(heap, size);
+            }
+        }
+        Arrays.sort(heap, 0, size);
+        int[] games = new int[size];
+        for (int k = 0; k < size; k++) {
+            games[k] = Integer.MAX_VALUE - (int) heap[size - 1 - k];
+        }
+        return games;
+    }
+
+    private static void siftUp(long[] heap, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= heap[i])
+                return;
+            long t = heap[parent];
+            heap[parent] = heap[i];
+            heap[i] = t;
+            i = parent;
+        }
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        int i = 0;
+        while (true) {
+            int least = i;
+            int l = 2 * i + 1;
+            int r = l + 1;
+            if (l < size && heap[l] < heap[least])
+                least = l;
+            if (r < size && heap[r] < heap[least])
+                least = r;
+            if (least == i)
+                return;
+            long t = heap[least];
+            heap[least] = heap[i];
+            heap[i] = t;
+            i = least;
+        }
+    }
+
+    // Commits what was appended and lets another process write
+    @Override
+    public void close() throws IOException {
+        if (writable)
+            commit();
+        if (lock != null)
+            lock.release();
+        indexChannel.close();
+    }
+
+    // Analyst's view of an archive:
+    //   ReplayArchive DIR stats
+    //   ReplayArchive DIR top MODE|ALL N
+    //   ReplayArchive DIR longest MODE|ALL N
+    //   ReplayArchive DIR on yyyy-MM-dd
+    //   ReplayArchive DIR verify GAME...
+    //   ReplayArchive DIR add FILE...       (imports replay files)
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: ReplayArchive DIR stats | top MODE|ALL N | longest MODE|ALL N"
+                    + " | on yyyy-MM-dd | verify GAME... | add FILE...");
+            System.exit(2);
+        }
+        Path dir = Paths.get(args[0]);
+        if (args[1].equals("add")) {
+            // Each file is dated when it was last written, so they go in in that order
+            Path[] files = new Path[args.length - 2];
+            long[] dates = new long[files.length];
+            Integer[] order = new Integer[files.length];
+            for (int i = 0; i < files.length; i++) {
+                files[i] = Paths.get(args[i + 2]);
+                dates[i] = Files.getLastModifiedTime(files[i]).toMillis();
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Long.compare(dates[a], dates[b]));
+            try (ReplayArchive archive = open(dir)) {
+                for (int i : order) {
+                    if (dates[i] < archive.lastDate()) {
+                        System.err.println("Skipping " + files[i] + ": older than the archive's last game");
+                        continue;
+                    }
+                    byte[] bytes = Files.readAllBytes(files[i]);
+                    Replay r = Replay.read(ByteBuffer.wrap(bytes));
+                    archive.append(bytes, r.mode, r.seed, r.ticks, r.score, 0, r.won, dates[i]);
+                }
+                archive.commit();
+                System.out.println(archive.size() + " games");
+            }
+            return;
+        }
+        try (ReplayArchive archive = openForReading(dir)) {
+            switch (args[1]) {
+                case "stats": {
+                    long start = System.nanoTime();
+                    long ticks = 0;
+                    for (int i = 0; i < archive.size(); i++) {
+                        ticks += archive.ticks(i);
+                    }
+                    System.out.printf("%d games, %d ticks, index scanned in %.1f ms%n",
+                            archive.size(), ticks, (System.nanoTime() - start) / 1e6);
+                    break;
+                }
+                case "top":
+                case "longest": {
+                    String mode = args[2].equalsIgnoreCase("ALL") ? null : args[2].toUpperCase();
+                    int n = Integer.parseInt(args[3]);
+                    int[] games = args[1].equals("top") ? archive.topByScore(mode, n) : archive.topByLength(mode, n);
+                    for (int game : games) {
+                        print(archive, game);
+                    }
+                    break;
+                }
+                case "on": {
+                    long from = LocalDate.parse(args[2]).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                    for (int game : archive.between(from, from + 24 * 3600 * 1000L)) {
+                        print(archive, game);
+                    }
+                    break;
+                }
+                case "verify":
+                    for (int i = 2; i < args.length; i++) {
+                        int game = Integer.parseInt(args[i]);
+                        System.out.println(game + ": " + (archive.read(game).verify() ? "verified" : "MISMATCH"));
+                    }
+                    break;
+                default:
+                    System.err.println("Unknown command: " + args[1]);
+                    System.exit(2);
+            }
+        }
+    }
+
+    private static void print(ReplayArchive archive, int game) {
+        System.out.printf("%8d  %s  %-8s score %5d  %7d ticks  %5ds%s%n", game,
+                Instant.ofEpochMilli(archive.date(game)), archive.mode(game), archive.score(game),
+                archive.ticks(game), archive.seconds(game), archive.won(game) ? "  won" : "");
+    }
+}
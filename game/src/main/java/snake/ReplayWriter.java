@@ -0,0 +1,191 @@
+package snake;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+// Records a game as it is played, in the format described in Replay. The game
+// thread only appends a few bytes per turn to a buffer in memory. Full buffers,
+// and whatever is left when the game ends, are handed to one background thread
+// that writes them through a FileChannel and hands the buffers back, so the game
+// loop never waits on the disk and, after the first few, never allocates. Once
+// the file is closed the same thread adds the game to the ReplayArchive, if the
+// writer was given one.
+final class ReplayWriter {
+    static final int BUFFER_SIZE = 4096;
+
+    // One writer thread for every recording, and for Leaderboard saves; tasks
+    // run in the order they were handed over. The thread is a daemon, so the
+    // JVM can exit mid-game, and closing the window or System.exit waits up to
+    // DRAIN_SECONDS for what was already handed over to reach the disk.
+    static final int DRAIN_SECONDS = 5;
+    static final ExecutorService IO = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "Snake disk writer");
+        t.setDaemon(true);
+        return t;
+    });
+
+    static {
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            IO.shutdown();
+            try {
+                if (!IO.awaitTermination(DRAIN_SECONDS, TimeUnit.SECONDS))
+                    System.err.println("Gave up waiting for replays and high scores to be written");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "Snake disk drain"));
+    }
+
+    // Hands a task to the writer thread. Once the JVM is exiting the thread takes
+    // no more, and work handed over after the drain is dropped.
+    static void execute(Runnable task) {
+        try {
+            IO.execute(task);
+        } catch (RejectedExecutionException e) {
+            // shutting down
+        }
+    }
+
+    private final Path file;
+    private final ConcurrentLinkedQueue<ByteBuffer> spare = new ConcurrentLinkedQueue<>();
+    private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    private long lastTick;
+    private boolean finished;
+
+    // Used only on the writer thread
+    private FileChannel channel;
+    private boolean failed;
+    private static final Map<Path, ReplayArchive> ARCHIVES = new HashMap<>(); // open ones, by directory
+
+    private final Path archiveDir;
+    private final String mode;
+    private final long seed;
+
+    ReplayWriter(Path file, Path archiveDir, GameMode mode, SnakeRules rules, int cols, int rows, long seed) {
+        this.file = file;
+        this.archiveDir = archiveDir;
+        this.mode = mode.name();
+        this.seed = seed;
+        ByteBuffer out = buffer;
+        out.putInt(Replay.MAGIC).put((byte) Replay.VERSION);
+        Replay.putString(out, mode.name());
+        Replay.putVarLong(out, cols);
+        Replay.putVarLong(out, rows);
+        out.putLong(seed);
+        SnakeRules defaults = new SnakeRules();
+        int changed = 0;
+        for (String name : SnakeRules.NAMES) {
+            if (rules.get(name) != defaults.get(name))
+                changed++;
+        }
+        Replay.putVarLong(out, changed);
+        for (String name : SnakeRules.NAMES) {
+            int value = rules.get(name);
+            if (value != defaults.get(name)) {
+                Replay.putString(out, name);
+                Replay.putVarLong(out, ((long) value << 1) ^ (value >> 31));
+            }
+        }
+    }
+
+    // Records a turn taken on the given tick. Game thread only.
+    void turn(long tick, SnakeEngine.Direction turn) {
+        if (finished)
+            return;
+        if (buffer.remaining() < 10)
+            flush();
+        Replay.putVarLong(buffer, (tick - lastTick) << 2 | turn.ordinal());
+        lastTick = tick;
+    }
+
+    // Ends the recording with the game's result and closes the file in the
+    // background, then archives it. Game thread only.
+    void finish(SnakeState state, long seconds) {
+        if (finished)
+            return;
+        finished = true;
+        if (buffer.remaining() < 32)
+            flush();
+        Replay.putVarLong(buffer, 0);
+        Replay.putVarLong(buffer, state.tick);
+        Replay.putVarLong(buffer, state.applesEaten);
+        buffer.put((byte) (state.won ? 1 : 0));
+        flush();
+        long ticks = state.tick;
+        int score = state.applesEaten;
+        boolean won = state.won;
+        long date = System.currentTimeMillis();
+        execute(() -> {
+            close();
+            if (archiveDir != null && !failed)
+                archive(ticks, score, seconds, won, date);
+        });
+    }
+
+    // Hands the current buffer to the writer thread and carries on in a spare one
+    private void flush() {
+        ByteBuffer full = buffer;
+        full.flip();
+        execute(() -> write(full));
+        ByteBuffer next = spare.poll();
+        buffer = next != null ? next : ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    private void write(ByteBuffer data) {
+        try {
+            if (!failed) {
+                if (channel == null) {
+                    Files.createDirectories(file.getParent());
+                    channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                            StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+                }
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+            }
+        } catch (IOException e) {
+            // A replay is a record, not part of the game: report it and carry on
+            failed = true;
+            System.err.println("Could not write replay " + file + ": " + e);
+        }
+        data.clear();
+        spare.offer(data);
+    }
+
+    private void archive(long ticks, int score, long seconds, boolean won, long date) {
+        try {
+            Path dir = archiveDir.toAbsolutePath().normalize();
+            ReplayArchive archive = ARCHIVES.get(dir);
+            if (archive == null) {
+                archive = ReplayArchive.open(dir);
+                ARCHIVES.put(dir, archive);
+            }
+            // A clock set back files the game as the newest rather than out of order
+            archive.append(Files.readAllBytes(file), mode, seed, ticks, score, seconds, won,
+                    Math.max(date, archive.lastDate()));
+            archive.commit();
+        } catch (IOException e) {
+            System.err.println("Could not archive replay " + file + ": " + e);
+        }
+    }
+
+    private void close() {
+        try {
+            if (channel != null)
+                channel.close();
+        } catch (IOException e) {
+            System.err.println("Could not write replay " + file + ": " + e);
+        }
+    }
+}
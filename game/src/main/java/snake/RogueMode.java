@@ -0,0 +1,68 @@
+package snake;
+
+// Health instead of instant death: enemies chase the head and each takes one
+// health on contact, and potions heal. Walls and the snake's own body still kill.
+public class RogueMode implements GameMode {
+    @Override
+    public String name() {
+        return "ROGUE";
+    }
+
+    @Override
+    public String title() {
+        return "Rogue";
+    }
+
+    @Override
+    public void reset(SnakeEngine engine) {
+        for (int i = 0; i < engine.rules.enemyCount; i++) {
+            engine.addEnemy();
+        }
+    }
+
+    @Override
+    public int tick(SnakeEngine engine) {
+        SnakeState s = engine.state;
+        engine.enemyMove();
+        if (s.snakeCells[s.cellAt(s.headX(), s.headY())] > 1)
+            return engine.die();
+        int events = engine.checkEnemy();
+        if (!s.alive)
+            return events | SnakeEngine.EVENT_DEATH;
+        events |= engine.checkPotion();
+        // Every applesPerPotion apples, top the potions up to potionCount
+        SnakeRules rules = engine.rules;
+        if (s.applesEaten != 0 && s.applesEaten % rules.applesPerPotion == 0) {
+            for (int n = s.entities.count(Entities.POTION); n < rules.potionCount; n++) {
+                if (engine.spawn(Entities.POTION, rules.potionDuration, Entities.STILL) < 0)
+                    break;
+            }
+        }
+        return events;
+    }
+
+    // The last "Health: n" handed out, so the HUD gets the same string back every
+    // frame until the health changes, whatever maxHealth allows. It is made anew
+    // only when it does; the pair is swapped whole, so engines sharing the mode
+    // at worst make it again.
+    private static final class HealthText {
+        final int health;
+        final String text;
+
+        HealthText(int health) {
+            this.health = health;
+            this.text = "Health: " + health;
+        }
+    }
+
+    private volatile HealthText healthText = new HealthText(0);
+
+    @Override
+    public String status(SnakeState state) {
+        int health = Math.max(state.health, 0);
+        HealthText last = healthText;
+        if (last.health != health)
+            healthText = last = new HealthText(health);
+        return last.text;
+    }
+}
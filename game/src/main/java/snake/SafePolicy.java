@@ -0,0 +1,150 @@
+package snake;
+
+import java.util.Arrays;
+
+// Greedy for the apple, but looks before it leaps: a move is only safe if the
+// cells it opens onto can hold the snake, counted by a breadth-first search that
+// stops once it has found that many, or LIMIT, so a decision costs microseconds
+// however big the board. A longer snake than that needs its whole region
+// measured, which on boards up to FLOOD_CELLS Bitboard.flood does over the
+// state's blocked cells a row of 64 at a time, one flood for all the moves into
+// one region. It takes the safe move nearest the apple, measuring from the
+// nearest first; with none safe, the one with the most room. The room is
+// measured as the board stands, so a region the body is still closing can yet
+// trap it.
+public class SafePolicy implements SnakePolicy {
+    static final int FLOOD_CELLS = 1 << 16; // boards measured by flood rather than by search
+    static final int LIMIT = 512; // cells searched before flooding, or past FLOOD_CELLS before a region is roomy enough
+    static final byte BLOCKING = SnakeState.CELL_BLOCKING;
+    private static final SnakeEngine.Direction[] DIRECTIONS = SnakeEngine.Direction.values();
+
+    // The cells one search has reached, in an open-addressed set of four slots
+    // per cell it can hold, emptied by moving on to the next stamp, not cleared
+    private static final int SET_BITS = 11;
+    private final int[] keys = new int[1 << SET_BITS];
+    private final int[] stamps = new int[1 << SET_BITS];
+    private int stamp;
+    private final int[] queue = new int[LIMIT];
+    private final SnakeEngine.Direction[] candidates = new SnakeEngine.Direction[3];
+    private final int[] cells = new int[3];
+    private final int[] distances = new int[3];
+
+    // Flooding: the state's blocked cells but the tail's, the region last
+    // flooded, and its size, -1 until a decision floods one
+    private Bitboard walls;
+    private Bitboard reached;
+    private int region;
+
+    @Override
+    public SnakeEngine.Direction next(SnakeState s) {
+        int tail = tailCell(s);
+        int need = s.cells > FLOOD_CELLS ? Math.min(s.bodyParts, LIMIT) : s.bodyParts;
+        region = -1;
+        // The moves open to the head, nearest the apple first; ties keep the
+        // current heading, as GreedyPolicy's do
+        int moves = 0;
+        for (SnakeEngine.Direction d : DIRECTIONS) {
+            if (d == s.direction.opposite())
+                continue;
+            int c = s.cellAhead(d);
+            if (c < 0 || !open(s, c, tail))
+                continue;
+            int distance = GreedyPolicy.distance(s, c % s.cols, c / s.cols, s.appleX, s.appleY);
+            int i = moves++;
+            for (; i > 0 && (distance < distances[i - 1]
+                    || distance == distances[i - 1] && d == s.direction); i--) {
+                candidates[i] = candidates[i - 1];
+                cells[i] = cells[i - 1];
+                distances[i] = distances[i - 1];
+            }
+            candidates[i] = d;
+            cells[i] = c;
+            distances[i] = distance;
+        }
+        // The first safe one, so a clear way to the apple costs one flood or search
+        SnakeEngine.Direction best = null;
+        int bestRoom = -1;
+        for (int i = 0; i < moves; i++) {
+            int room = room(s, cells[i], tail, need);
+            if (room >= need)
+                return candidates[i];
+            if (room > bestRoom) {
+                best = candidates[i];
+                bestRoom = room;
+            }
+        }
+        return best;
+    }
+
+    // The tail's cell, which it leaves before the head moves, so the head may take it
+    static int tailCell(SnakeState s) {
+        int slot = s.segment(s.bodyParts - 1);
+        return s.cellAt(s.x[slot], s.y[slot]);
+    }
+
+    static boolean open(SnakeState s, int c, int tail) {
+        return (s.snakeCells[c] == 0 || c == tail) && (s.itemCells[c] & BLOCKING) == 0;
+    }
+
+    // How many open cells can be reached from cell start, counting no further
+    // than need unless it floods
+    private int room(SnakeState s, int start, int tail, int need) {
+        int found = search(s, start, tail, Math.min(need, LIMIT));
+        if (found >= need || found < LIMIT || s.cells > FLOOD_CELLS)
+            return found;
+        // The search stopped short of the snake's length: flood the region
+        int cx = start % s.cols;
+        int cy = start / s.cols;
+        if (region < 0) {
+            if (walls == null || walls.cols != s.cols || walls.rows != s.rows) {
+                walls = new Bitboard(s.cols, s.rows);
+                reached = new Bitboard(s.cols, s.rows);
+            }
+            System.arraycopy(s.blocked.bits, 0, walls.bits, 0, walls.bits.length);
+            walls.put(tail % s.cols, tail / s.cols, (s.itemCells[tail] & BLOCKING) != 0);
+        } else if (reached.get(cx, cy)) {
+            return region;
+        }
+        region = reached.flood(cx, cy, walls, s.wrap);
+        return region;
+    }
+
+    // Breadth-first from cell start, counting no further than need, at most LIMIT
+    private int search(SnakeState s, int start, int tail, int need) {
+        if (++stamp == 0) {
+            Arrays.fill(stamps, 0);
+            stamp = 1;
+        }
+        add(start);
+        queue[0] = start;
+        int count = 1;
+        for (int i = 0; i < count; i++) {
+            int c = queue[i];
+            int cx = c % s.cols;
+            int cy = c / s.cols;
+            for (SnakeEngine.Direction d : DIRECTIONS) {
+                int n = s.cellToward(cx, cy, d);
+                if (n < 0 || !open(s, n, tail) || !add(n))
+                    continue;
+                if (count == need)
+                    return need;
+                queue[count++] = n;
+            }
+        }
+        return count;
+    }
+
+    // Adds cell c to the set; false if it was there already
+    private boolean add(int c) {
+        int mask = keys.length - 1;
+        for (int i = c * 0x9E3779B1 >>> 32 - SET_BITS; ; i = i + 1 & mask) {
+            if (stamps[i] != stamp) {
+                stamps[i] = stamp;
+                keys[i] = c;
+                return true;
+            }
+            if (keys[i] == c)
+                return false;
+        }
+    }
+}
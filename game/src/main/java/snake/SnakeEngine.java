@@ -0,0 +1,383 @@
+package snake;
+
+import java.util.Arrays;
+
+// The shared game rules, free of Swing, sound and wall-clock time. Each tick
+// moves the snake and feeds it apples, then hands over to the GameMode plug-in.
+// A GamePanel (or a simulator) calls step() once per tick and reacts to the
+// returned events; the whole game lives in the SnakeState it exposes.
+public class SnakeEngine {
+    public enum Direction {
+        UP(0, -1), DOWN(0, 1), LEFT(-1, 0), RIGHT(1, 0);
+
+        final int dx;
+        final int dy;
+
+        Direction(int dx, int dy) {
+            this.dx = dx;
+            this.dy = dy;
+        }
+
+        Direction opposite() {
+            switch (this) {
+                case UP:
+                    return DOWN;
+                case DOWN:
+                    return UP;
+                case LEFT:
+                    return RIGHT;
+                default:
+                    return LEFT;
+            }
+        }
+    }
+
+    // Events reported by step(), or-ed together
+    public static final int EVENT_APPLE = 1;
+    public static final int EVENT_BONUS = 2;
+    public static final int EVENT_SHIELD = 4;
+    public static final int EVENT_POTION = 8;
+    public static final int EVENT_HIT = 16; // Rogue enemy took one health
+    public static final int EVENT_DEATH = 32;
+    public static final int EVENT_WIN = 64;
+    public static final int EVENT_PICKUP = EVENT_APPLE | EVENT_BONUS | EVENT_SHIELD | EVENT_POTION;
+
+    // Boards past this many cells have Rogue enemies step straight at the head
+    // even with enemyChase on: the distance field would cost an int per cell and
+    // a search that can cover the whole board every tick
+    static final int CHASE_CELLS = 1 << 16;
+
+    final SnakeRules rules;
+    final SnakeState state;
+    final DistanceField chase; // Rogue enemies' way to the head
+
+    public SnakeEngine(int cols, int rows) {
+        this(cols, rows, new SnakeRules());
+    }
+
+    // Throws IllegalArgumentException if the rules cannot be played on the board
+    public SnakeEngine(int cols, int rows, SnakeRules rules) {
+        rules.check(cols, rows);
+        this.rules = rules;
+        state = new SnakeState(cols, rows);
+        chase = new DistanceField(state);
+    }
+
+    public SnakeState state() {
+        return state;
+    }
+
+    // Starts a new game in the given mode; the same seed always replays the same game
+    public void reset(GameMode mode, long seed) {
+        SnakeState s = state;
+        s.mode = mode;
+        s.wrap = mode.wraps();
+        s.random.setSeed(seed);
+        s.clearBoard();
+        s.tick = 0;
+        s.applesEaten = 0;
+        s.updateInterval = rules.initialDelayMs * 1_000_000L;
+        s.alive = true;
+        s.won = false;
+
+        s.head = 0;
+        s.bodyParts = rules.startLength;
+        s.direction = Direction.RIGHT;
+        s.ensureRing(s.bodyParts + 1);
+        for (int i = 0; i < s.bodyParts; i++) {
+            s.x[i] = (short) (rules.startLength - 1 - i);
+            s.y[i] = (short) rules.startRow;
+            s.enterCell(s.x[i], s.y[i]);
+        }
+        // Park the unused ring slots on the tail so growth never reveals a stale cell
+        int tail = s.bodyParts - 1;
+        Arrays.fill(s.x, s.bodyParts, s.x.length, s.x[tail]);
+        Arrays.fill(s.y, s.bodyParts, s.y.length, s.y[tail]);
+
+        s.hasShield = false;
+        s.health = rules.startHealth;
+        s.obstacleCount = 0;
+
+        newApple();
+        mode.reset(this);
+    }
+
+    // Advances the game by one tick. A turn that would reverse the snake onto
+    // itself is ignored; null keeps the current heading. Returns EVENT_* flags.
+    public int step(Direction turn) {
+        SnakeState s = state;
+        if (!s.alive)
+            return 0;
+        if (turn != null && turn != s.direction.opposite())
+            s.direction = turn;
+        s.tick++;
+
+        if (!move())
+            return die();
+        int events = checkApple();
+        if (s.won)
+            return events | EVENT_WIN;
+        return events | s.mode.tick(this);
+    }
+
+    int die() {
+        state.alive = false;
+        return EVENT_DEATH;
+    }
+
+    // Steps the ring buffer back one slot and writes the new head there. Returns
+    // false, leaving the snake in place, when the head would leave the board.
+    boolean move() {
+        SnakeState s = state;
+        int c = s.cellAhead(s.direction);
+        if (c < 0)
+            return false;
+        // The tail leaves its cell before the head enters the next one
+        int tail = s.segment(s.bodyParts - 1);
+        s.leaveCell(s.x[tail], s.y[tail]);
+        s.head = s.head == 0 ? s.x.length - 1 : s.head - 1;
+        s.x[s.head] = (short) (c % s.cols);
+        s.y[s.head] = (short) (c / s.cols);
+        s.enterCell(s.x[s.head], s.y[s.head]);
+        return true;
+    }
+
+    // Grows the snake by the given number of segments; the new tail segments
+    // reuse the slots the tail just left, so no copying is needed beyond a
+    // compact board's ring doubling now and then. The last part fills the
+    // board's last cell, which wins the game.
+    void grow(int parts) {
+        SnakeState s = state;
+        s.ensureRing(s.bodyParts + parts + 1);
+        for (int i = 0; i < parts && s.bodyParts < s.x.length; i++) {
+            int slot = s.segment(s.bodyParts++);
+            s.enterCell(s.x[slot], s.y[slot]);
+        }
+    }
+
+    int checkApple() {
+        SnakeState s = state;
+        if (!s.hasItem(s.headX(), s.headY(), SnakeState.CELL_APPLE))
+            return 0;
+        grow(1);
+        s.applesEaten++;
+        newApple();
+        // Increase game speed every applesPerSpeedUp apples
+        if (s.applesEaten % rules.applesPerSpeedUp == 0 && s.updateInterval > rules.minDelayMs * 1_000_000L) {
+            s.updateInterval -= rules.speedUpStepMs * 1_000_000L;
+        }
+        s.mode.onApple(this);
+        return EVENT_APPLE;
+    }
+
+    int checkBonus() {
+        SnakeState s = state;
+        int e = atHead(Entities.BONUS);
+        if (e < 0)
+            return 0;
+        remove(e);
+        s.applesEaten += rules.bonusScore;
+        grow(rules.bonusExtraParts);
+        return EVENT_BONUS;
+    }
+
+    int checkShield() {
+        int e = atHead(Entities.SHIELD);
+        if (e < 0)
+            return 0;
+        remove(e);
+        state.hasShield = true;
+        return EVENT_SHIELD;
+    }
+
+    // Self and obstacle collisions (a shield absorbs one obstacle), then shield pickup
+    int checkCollisions() {
+        SnakeState s = state;
+        int c = s.cellAt(s.headX(), s.headY());
+        // Self-collision (always fatal): the head shares its cell with another segment
+        if (s.snakeCells[c] > 1)
+            return die();
+        if ((s.itemCells[c] & SnakeState.CELL_OBSTACLE) != 0) {
+            if (s.hasShield) { // consume shield to avoid death
+                s.hasShield = false;
+            } else {
+                return die();
+            }
+        }
+        return checkShield();
+    }
+
+    // Rogue: an enemy takes one health on contact and respawns elsewhere
+    int checkEnemy() {
+        SnakeState s = state;
+        int e = atHead(Entities.ENEMY);
+        if (e < 0)
+            return 0;
+        s.health--;
+        respawn(e);
+        if (s.health <= 0)
+            die();
+        return EVENT_HIT;
+    }
+
+    // Rogue: heals when the head reaches a potion, and counts the rest down
+    int checkPotion() {
+        SnakeState s = state;
+        int events = 0;
+        int e = atHead(Entities.POTION);
+        if (e >= 0) {
+            if (s.health < rules.maxHealth) {
+                s.health++;
+            }
+            remove(e);
+            events = EVENT_POTION;
+        }
+        countDown(Entities.POTION);
+        return events;
+    }
+
+    // Rogue: each enemy in turn moves one grid step toward the snake's head, by
+    // its behaviour: along the shortest way round the snake, from a distance field
+    // searched once for all of them, or diagonally straight at it. Enemies never
+    // share a cell: one whose step another holds waits.
+    void enemyMove() {
+        SnakeState s = state;
+        Entities es = s.entities;
+        boolean searched = false;
+        for (int e = 0; e < es.top; e++) {
+            int ex = es.x[e];
+            int ey = es.y[e];
+            int nx = ex;
+            int ny = ey;
+            switch (es.behaviour[e]) {
+                case Entities.CHASE:
+                    if (!searched) {
+                        chase.compute();
+                        searched = true;
+                    }
+                    int c = chase.stepFrom(ex, ey);
+                    if (c < 0)
+                        continue;
+                    nx = c % s.cols;
+                    ny = c / s.cols;
+                    break;
+                case Entities.STEP:
+                    if (ex < s.headX())
+                        nx++;
+                    else if (ex > s.headX())
+                        nx--;
+                    if (ey < s.headY())
+                        ny++;
+                    else if (ey > s.headY())
+                        ny--;
+                    if (nx == ex && ny == ey || s.hasItem(nx, ny, SnakeState.CELL_ENEMY))
+                        continue;
+                    break;
+                default:
+                    continue;
+            }
+            byte flag = Entities.FLAGS[es.kind[e]];
+            s.clearItem(ex, ey, flag);
+            es.x[e] = nx;
+            es.y[e] = ny;
+            s.setItem(nx, ny, flag);
+        }
+    }
+
+    // Places a new apple on a random empty cell; a full board means the player has won
+    void newApple() {
+        SnakeState s = state;
+        s.clearItem(s.appleX, s.appleY, SnakeState.CELL_APPLE);
+        int c = s.randomFreeCell();
+        if (c < 0) {
+            s.won = true;
+            s.alive = false;
+            return;
+        }
+        s.appleX = c % s.cols;
+        s.appleY = c / s.cols;
+        s.setItem(s.appleX, s.appleY, SnakeState.CELL_APPLE);
+    }
+
+    // Drawing from the free-cell index keeps obstacles off the snake, the apple
+    // and each other without any rejection sampling. Replaces any earlier obstacles.
+    void generateObstacles() {
+        SnakeState s = state;
+        for (int i = 0; i < s.obstacleCount; i++) {
+            s.clearItem(s.obstacleX[i], s.obstacleY[i], SnakeState.CELL_OBSTACLE);
+        }
+        if (s.obstacleX.length != rules.obstacleCount) {
+            s.obstacleX = new int[rules.obstacleCount];
+            s.obstacleY = new int[rules.obstacleCount];
+        }
+        s.obstacleCount = 0;
+        for (int i = 0; i < rules.obstacleCount; i++) {
+            int c = s.randomFreeCell();
+            if (c < 0)
+                break;
+            s.obstacleX[i] = c % s.cols;
+            s.obstacleY[i] = c / s.cols;
+            s.setItem(s.obstacleX[i], s.obstacleY[i], SnakeState.CELL_OBSTACLE);
+            s.obstacleCount++;
+        }
+    }
+
+    // Puts a new entity of the given kind on a random empty cell, for the given
+    // number of ticks if it runs out. Returns its slot, or -1 if the board is full.
+    int spawn(byte kind, int ticks, byte behaviour) {
+        SnakeState s = state;
+        int c = s.randomFreeCell();
+        if (c < 0)
+            return -1; // no room left on the board
+        int e = s.entities.add(kind, c % s.cols, c / s.cols, ticks, behaviour);
+        s.setItem(s.entities.x[e], s.entities.y[e], Entities.FLAGS[kind]);
+        return e;
+    }
+
+    // Rogue: puts another enemy on the board, chasing as the rules and the
+    // board's size say
+    int addEnemy() {
+        boolean chasing = rules.enemyChase != 0 && state.cells <= CHASE_CELLS;
+        return spawn(Entities.ENEMY, 0, chasing ? Entities.CHASE : Entities.STEP);
+    }
+
+    // Moves entity e to a random empty cell (it stays put if there is none)
+    void respawn(int e) {
+        SnakeState s = state;
+        Entities es = s.entities;
+        byte flag = Entities.FLAGS[es.kind[e]];
+        s.clearItem(es.x[e], es.y[e], flag);
+        int c = s.randomFreeCell();
+        if (c >= 0) {
+            es.x[e] = c % s.cols;
+            es.y[e] = c / s.cols;
+        }
+        s.setItem(es.x[e], es.y[e], flag);
+    }
+
+    void remove(int e) {
+        SnakeState s = state;
+        Entities es = s.entities;
+        s.clearItem(es.x[e], es.y[e], Entities.FLAGS[es.kind[e]]);
+        es.remove(e);
+    }
+
+    // The slot of the entity of the given kind on the head's cell, or -1
+    int atHead(byte kind) {
+        SnakeState s = state;
+        if (s.entities.count(kind) == 0 || !s.hasItem(s.headX(), s.headY(), Entities.FLAGS[kind]))
+            return -1;
+        return s.entities.find(kind, s.headX(), s.headY());
+    }
+
+    // Counts down every entity of the given kind, removing those whose time is up
+    void countDown(byte kind) {
+        Entities es = state.entities;
+        if (es.count(kind) == 0)
+            return;
+        for (int e = 0; e < es.top; e++) {
+            if (es.kind[e] == kind && --es.timer[e] <= 0)
+                remove(e);
+        }
+    }
+}
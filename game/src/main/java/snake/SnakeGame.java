@@ -0,0 +1,92 @@
+package snake;
+
+import javax.swing.*;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+public class SnakeGame extends JFrame {
+    final GamePanel panel;
+
+    public SnakeGame(boolean active, boolean vsync, int cols, int rows) {
+        setTitle("Multi-Mode Snake Game");
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setResizable(false);
+        panel = new GamePanel(cols, rows);
+        if (active) {
+            // Draw through a BufferStrategy on a render thread of its own; the
+            // panel still runs the game but is never shown
+            ActiveView view = new ActiveView(panel, vsync);
+            add(view);
+            pack();
+            setLocationRelativeTo(null);
+            setVisible(true);
+            view.requestFocus();
+        } else {
+            add(panel);
+            pack();
+            setLocationRelativeTo(null);
+            setVisible(true);
+        }
+    }
+
+    // --active renders through ActiveView instead of Swing repaints, and --vsync
+    // paces it to the display's refresh rate. --board plays on a board of another
+    // size, up to 32767x32767 cells. --replay plays a recorded game instead, on
+    // its own board, --speed times as fast as it was played. --autopilot starts
+    // straight into a game played by the named bot, over and over, as an attract
+    // mode; ESC from the game over screen hands the menu back to the player.
+    public static void main(String[] args) throws IOException {
+        boolean active = false;
+        boolean vsync = false;
+        int cols = 0;
+        int rows = 0;
+        Replay replay = null;
+        double speed = 1.0;
+        Autopilot bot = null;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--active")) {
+                active = true;
+            } else if (args[i].equals("--vsync")) {
+                vsync = true;
+            } else if (args[i].equals("--board") && i + 1 < args.length && args[i + 1].matches("\\d+x\\d+")) {
+                String[] size = args[++i].split("x");
+                cols = Integer.parseInt(size[0]);
+                rows = Integer.parseInt(size[1]);
+            } else if (args[i].equals("--replay") && i + 1 < args.length) {
+                replay = Replay.read(Paths.get(args[++i]));
+            } else if (args[i].equals("--speed") && i + 1 < args.length) {
+                speed = Double.parseDouble(args[++i]);
+            } else if (args[i].equals("--autopilot") && i + 1 < args.length) {
+                bot = Autopilot.named(args[++i]);
+            } else {
+                System.err.println("usage: SnakeGame [--active [--vsync]] [--board COLSxROWS] [--replay FILE [--speed X]]"
+                        + " [--autopilot greedy|safe|hamilton|monte_carlo]");
+                System.exit(2);
+            }
+        }
+        if (cols == 0) {
+            cols = replay != null ? replay.cols : GamePanel.SCREEN_WIDTH / GamePanel.UNIT_SIZE;
+            rows = replay != null ? replay.rows : GamePanel.SCREEN_HEIGHT / GamePanel.UNIT_SIZE;
+        }
+        if (cols < 8 || rows < 8 || cols > SnakeState.MAX_SIDE || rows > SnakeState.MAX_SIDE) {
+            System.err.println("--board must be 8 to " + SnakeState.MAX_SIDE + " cells a side");
+            System.exit(2);
+        }
+        boolean activeView = active;
+        boolean paced = vsync;
+        Replay watched = replay;
+        double watchSpeed = speed;
+        int boardCols = cols;
+        int boardRows = rows;
+        Autopilot attract = bot;
+        SwingUtilities.invokeLater(() -> {
+            SnakeGame game = new SnakeGame(activeView, paced, boardCols, boardRows);
+            game.panel.autopilot = attract;
+            if (watched != null) {
+                game.panel.startReplay(watched, watchSpeed);
+            } else if (attract != null) {
+                game.panel.startGame();
+            }
+        });
+    }
+}
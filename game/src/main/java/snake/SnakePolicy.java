@@ -0,0 +1,8 @@
+package snake;
+
+// Decides the turn for each tick of a headless game, in place of a player at
+// the keyboard. A policy may keep state, so give every game its own instance.
+public interface SnakePolicy {
+    // Picks the turn for the next tick; null keeps the current heading
+    SnakeEngine.Direction next(SnakeState state);
+}
@@ -0,0 +1,247 @@
+package snake;
+
+// Balance constants for SnakeEngine. The defaults are the shipped game; the
+// batch simulator hands tweaked copies to its engines when tuning them.
+public class SnakeRules {
+    // Starting snake
+    int startLength = 6;
+    int startRow = 4;
+
+    // Speed curve: every applesPerSpeedUp apples the tick gets speedUpStepMs
+    // shorter, starting at initialDelayMs and stopping at minDelayMs
+    int initialDelayMs = 150;
+    int minDelayMs = 50;
+    int speedUpStepMs = 10;
+    int applesPerSpeedUp = 5;
+
+    // Bonus fruit (BONUS mode)
+    int bonusDuration = 200; // update cycles
+    int bonusScore = 5;
+    int bonusExtraParts = 2;
+    int applesPerBonus = 10;
+
+    // Obstacles (OBSTACLE mode)
+    int obstacleCount = 5;
+
+    // Shield power-up
+    int shieldDuration = 150; // update cycles
+    int applesPerShield = 15;
+
+    // Rogue health and potions
+    int startHealth = 3;
+    int maxHealth = 5;
+    int potionDuration = 300; // update cycles
+    int applesPerPotion = 7;
+    int potionCount = 1; // potions on the board at once
+
+    // Rogue enemies: how many, and whether they follow the shortest path to the
+    // head (1) or step straight at it diagonally, through walls of snake (0)
+    int enemyCount = 1;
+    int enemyChase = 1;
+
+    // Every constant's name, in declaration order, for code that saves rules
+    static final String[] NAMES = {
+            "startLength", "startRow",
+            "initialDelayMs", "minDelayMs", "speedUpStepMs", "applesPerSpeedUp",
+            "bonusDuration", "bonusScore", "bonusExtraParts", "applesPerBonus",
+            "obstacleCount",
+            "shieldDuration", "applesPerShield",
+            "startHealth", "maxHealth", "potionDuration", "applesPerPotion",
+            "potionCount", "enemyCount", "enemyChase",
+    };
+
+    public SnakeRules copy() {
+        SnakeRules r = new SnakeRules();
+        r.startLength = startLength;
+        r.startRow = startRow;
+        r.initialDelayMs = initialDelayMs;
+        r.minDelayMs = minDelayMs;
+        r.speedUpStepMs = speedUpStepMs;
+        r.applesPerSpeedUp = applesPerSpeedUp;
+        r.bonusDuration = bonusDuration;
+        r.bonusScore = bonusScore;
+        r.bonusExtraParts = bonusExtraParts;
+        r.applesPerBonus = applesPerBonus;
+        r.obstacleCount = obstacleCount;
+        r.shieldDuration = shieldDuration;
+        r.applesPerShield = applesPerShield;
+        r.startHealth = startHealth;
+        r.maxHealth = maxHealth;
+        r.potionDuration = potionDuration;
+        r.applesPerPotion = applesPerPotion;
+        r.potionCount = potionCount;
+        r.enemyCount = enemyCount;
+        r.enemyChase = enemyChase;
+        return r;
+    }
+
+    // Gets a constant by its field name
+    public int get(String name) {
+        switch (name) {
+            case "startLength":
+                return startLength;
+            case "startRow":
+                return startRow;
+            case "initialDelayMs":
+                return initialDelayMs;
+            case "minDelayMs":
+                return minDelayMs;
+            case "speedUpStepMs":
+                return speedUpStepMs;
+            case "applesPerSpeedUp":
+                return applesPerSpeedUp;
+            case "bonusDuration":
+                return bonusDuration;
+            case "bonusScore":
+                return bonusScore;
+            case "bonusExtraParts":
+                return bonusExtraParts;
+            case "applesPerBonus":
+                return applesPerBonus;
+            case "obstacleCount":
+                return obstacleCount;
+            case "shieldDuration":
+                return shieldDuration;
+            case "applesPerShield":
+                return applesPerShield;
+            case "startHealth":
+                return startHealth;
+            case "maxHealth":
+                return maxHealth;
+            case "potionDuration":
+                return potionDuration;
+            case "applesPerPotion":
+                return applesPerPotion;
+            case "potionCount":
+                return potionCount;
+            case "enemyCount":
+                return enemyCount;
+            case "enemyChase":
+                return enemyChase;
+            default:
+                throw new IllegalArgumentException("Unknown rule: " + name);
+        }
+    }
+
+    // Sets a constant by its field name, for command-line overrides like bonusDuration=300.
+    // Throws IllegalArgumentException for a value the engine cannot play with.
+    public void set(String name, int value) {
+        check(name, value);
+        switch (name) {
+            case "startLength":
+                startLength = value;
+                break;
+            case "startRow":
+                startRow = value;
+                break;
+            case "initialDelayMs":
+                initialDelayMs = value;
+                break;
+            case "minDelayMs":
+                minDelayMs = value;
+                break;
+            case "speedUpStepMs":
+                speedUpStepMs = value;
+                break;
+            case "applesPerSpeedUp":
+                applesPerSpeedUp = value;
+                break;
+            case "bonusDuration":
+                bonusDuration = value;
+                break;
+            case "bonusScore":
+                bonusScore = value;
+                break;
+            case "bonusExtraParts":
+                bonusExtraParts = value;
+                break;
+            case "applesPerBonus":
+                applesPerBonus = value;
+                break;
+            case "obstacleCount":
+                obstacleCount = value;
+                break;
+            case "shieldDuration":
+                shieldDuration = value;
+                break;
+            case "applesPerShield":
+                applesPerShield = value;
+                break;
+            case "startHealth":
+                startHealth = value;
+                break;
+            case "maxHealth":
+                maxHealth = value;
+                break;
+            case "potionDuration":
+                potionDuration = value;
+                break;
+            case "applesPerPotion":
+                applesPerPotion = value;
+                break;
+            case "potionCount":
+                potionCount = value;
+                break;
+            case "enemyCount":
+                enemyCount = value;
+                break;
+            case "enemyChase":
+                enemyChase = value;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown rule: " + name);
+        }
+    }
+
+    // Checks a value for the named constant: the divisors, delays, starting
+    // length and health need at least 1, everything else at least 0, and
+    // enemyChase is a flag
+    static void check(String name, int value) {
+        int least;
+        switch (name) {
+            case "startLength":
+            case "initialDelayMs":
+            case "minDelayMs":
+            case "applesPerSpeedUp":
+            case "applesPerBonus":
+            case "applesPerShield":
+            case "startHealth":
+            case "maxHealth":
+            case "applesPerPotion":
+                least = 1;
+                break;
+            case "startRow":
+            case "speedUpStepMs":
+            case "bonusDuration":
+            case "bonusScore":
+            case "bonusExtraParts":
+            case "obstacleCount":
+            case "shieldDuration":
+            case "potionDuration":
+            case "potionCount":
+            case "enemyCount":
+                least = 0;
+                break;
+            case "enemyChase":
+                if (value != 0 && value != 1)
+                    throw new IllegalArgumentException("enemyChase must be 0 or 1, not " + value);
+                return;
+            default:
+                throw new IllegalArgumentException("Unknown rule: " + name);
+        }
+        if (value < least)
+            throw new IllegalArgumentException(name + " must be at least " + least + ", not " + value);
+    }
+
+    // Checks every constant, however it was set, and that the starting snake
+    // fits a board of cols x rows: it lies along row startRow from column 0
+    void check(int cols, int rows) {
+        for (String name : NAMES) {
+            check(name, get(name));
+        }
+        if (startLength > cols)
+            throw new IllegalArgumentException("startLength " + startLength + " does not fit a board " + cols + " wide");
+        if (startRow >= rows)
+            throw new IllegalArgumentException("startRow " + startRow + " is off a board " + rows + " high");
+    }
+}
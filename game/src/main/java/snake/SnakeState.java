@@ -0,0 +1,335 @@
+package snake;
+
+import java.util.Arrays;
+
+// Everything one game needs in order to be stepped by SnakeEngine, with no Swing
+// and no wall clock. Positions are grid cells, not pixels; views scale them.
+public class SnakeState {
+    // Item flags stored per cell in the occupancy grid
+    static final byte CELL_OBSTACLE = 1;
+    static final byte CELL_APPLE = 2;
+    static final byte CELL_BONUS = 4;
+    static final byte CELL_SHIELD = 8;
+    static final byte CELL_ENEMY = 16;
+    static final byte CELL_POTION = 32;
+    static final byte CELL_BLOCKING = CELL_OBSTACLE | CELL_ENEMY; // items a snake must steer around
+
+    // Boards up to Short.MAX_VALUE cells a side. Past COMPACT_CELLS cells the
+    // per-cell int tables would cost gigabytes, so such a board keeps its free
+    // cells in a bitmap and starts its ring buffer small (see ensureRing).
+    static final int MAX_SIDE = Short.MAX_VALUE;
+    static final int COMPACT_CELLS = 1 << 20;
+    static final int INITIAL_RING = 1024;
+
+    // Board size in cells
+    final int cols;
+    final int rows;
+    final int cells;
+
+    GameMode mode;
+    boolean wrap; // mode.wraps(), cached for the per-tick move
+    final GameRandom random = new GameRandom();
+
+    // Snake body as a ring buffer: segment i lives at slot (head + i) % x.length,
+    // so moving only writes the new head and never shifts the rest of the body.
+    // Slots past the tail hold the cells it left, newest first, for grow().
+    short[] x;
+    short[] y;
+    int head;
+    int bodyParts;
+    SnakeEngine.Direction direction = SnakeEngine.Direction.RIGHT;
+
+    // Occupancy grid, updated incrementally as the head enters a cell and the tail
+    // leaves one, so every hit test is a single lookup instead of a scan
+    final byte[] snakeCells; // snake segments per cell
+    final byte[] itemCells; // CELL_* flags per cell
+    // Free-cell index: freeCells[0..freeCount) lists every empty cell and freeSlot[c]
+    // is the position of cell c in that list (-1 when occupied), so cells come and go
+    // by swap-remove and spawning is a single uniform draw however full the board is.
+    // Compact boards have neither; see freeBits.
+    final int[] freeCells;
+    final int[] freeSlot;
+    int freeCount;
+    // Compact boards' free-cell index: bit c of freeBits is set while cell c is
+    // empty, and freeTree is a Fenwick tree over the words' free counts, so the
+    // n-th free cell is found in log(words) steps and a bit scan
+    final long[] freeBits;
+    final int[] freeTree;
+    // The cells a snake cannot safely enter, its body and CELL_BLOCKING items, a
+    // bit each, for bots' reachability queries (see Bitboard.flood, SafePolicy)
+    final Bitboard blocked;
+
+    // Progress
+    long tick; // steps taken since reset
+    int applesEaten;
+    long updateInterval; // in nanoseconds; shrinks as apples are eaten
+    boolean alive;
+    boolean won; // the snake filled every free cell
+
+    // Apple
+    int appleX;
+    int appleY;
+
+    // Obstacles (OBSTACLE mode)
+    int obstacleCount;
+    int[] obstacleX = new int[0];
+    int[] obstacleY = new int[0];
+
+    // Bonus fruit, shield power-ups, Rogue enemies and potions
+    final Entities entities = new Entities();
+
+    boolean hasShield; // collected shield
+    int health; // ROGUE mode
+
+    SnakeState(int cols, int rows) {
+        if (cols < 1 || rows < 1 || cols > MAX_SIDE || rows > MAX_SIDE)
+            throw new IllegalArgumentException("Board must be 1 to " + MAX_SIDE + " cells a side, not " + cols + "x" + rows);
+        this.cols = cols;
+        this.rows = rows;
+        cells = cols * rows;
+        snakeCells = new byte[cells];
+        itemCells = new byte[cells];
+        blocked = new Bitboard(cols, rows);
+        if (cells > COMPACT_CELLS) {
+            x = new short[INITIAL_RING];
+            y = new short[INITIAL_RING];
+            freeCells = null;
+            freeSlot = null;
+            freeBits = new long[(cells + 63) >>> 6];
+            freeTree = new int[freeBits.length + 1];
+        } else {
+            x = new short[cells];
+            y = new short[cells];
+            freeCells = new int[cells];
+            freeSlot = new int[cells];
+            freeBits = null;
+            freeTree = null;
+        }
+    }
+
+    // Makes this a copy of another state of a board the same size, reusing this
+    // one's arrays, so bots can play ahead on it without touching the game. Every
+    // array is copied whole; only the ring and obstacle arrays can differ in size.
+    void copyFrom(SnakeState o) {
+        if (o.cols != cols || o.rows != rows)
+            throw new IllegalArgumentException("Cannot copy a " + o.cols + "x" + o.rows + " board onto " + cols + "x" + rows);
+        mode = o.mode;
+        wrap = o.wrap;
+        random.copyFrom(o.random);
+        if (x.length != o.x.length) {
+            x = new short[o.x.length];
+            y = new short[o.y.length];
+        }
+        System.arraycopy(o.x, 0, x, 0, x.length);
+        System.arraycopy(o.y, 0, y, 0, y.length);
+        head = o.head;
+        bodyParts = o.bodyParts;
+        direction = o.direction;
+        System.arraycopy(o.snakeCells, 0, snakeCells, 0, cells);
+        System.arraycopy(o.itemCells, 0, itemCells, 0, cells);
+        freeCount = o.freeCount;
+        if (freeBits == null) {
+            System.arraycopy(o.freeCells, 0, freeCells, 0, cells);
+            System.arraycopy(o.freeSlot, 0, freeSlot, 0, cells);
+        } else {
+            System.arraycopy(o.freeBits, 0, freeBits, 0, freeBits.length);
+            System.arraycopy(o.freeTree, 0, freeTree, 0, freeTree.length);
+        }
+        System.arraycopy(o.blocked.bits, 0, blocked.bits, 0, blocked.bits.length);
+        tick = o.tick;
+        applesEaten = o.applesEaten;
+        updateInterval = o.updateInterval;
+        alive = o.alive;
+        won = o.won;
+        appleX = o.appleX;
+        appleY = o.appleY;
+        obstacleCount = o.obstacleCount;
+        if (obstacleX.length < obstacleCount) {
+            obstacleX = new int[o.obstacleX.length];
+            obstacleY = new int[o.obstacleY.length];
+        }
+        System.arraycopy(o.obstacleX, 0, obstacleX, 0, obstacleCount);
+        System.arraycopy(o.obstacleY, 0, obstacleY, 0, obstacleCount);
+        entities.copyFrom(o.entities);
+        hasShield = o.hasShield;
+        health = o.health;
+    }
+
+    // Empties the board: no snake, no items or entities, every cell free
+    void clearBoard() {
+        Arrays.fill(snakeCells, (byte) 0);
+        Arrays.fill(itemCells, (byte) 0);
+        blocked.clear();
+        entities.clear();
+        freeCount = cells;
+        if (freeBits == null) {
+            for (int c = 0; c < freeCount; c++) {
+                freeCells[c] = c;
+                freeSlot[c] = c;
+            }
+            return;
+        }
+        Arrays.fill(freeBits, -1L);
+        if ((cells & 63) != 0)
+            freeBits[freeBits.length - 1] = -1L >>> -cells;
+        // Builds the tree in one pass: each node passes its sum on to its parent
+        Arrays.fill(freeTree, 0);
+        for (int i = 1; i < freeTree.length; i++) {
+            freeTree[i] += Long.bitCount(freeBits[i - 1]);
+            int parent = i + (i & -i);
+            if (parent < freeTree.length)
+                freeTree[parent] += freeTree[i];
+        }
+    }
+
+    // Makes room in the ring for a snake of the given length. Only compact boards
+    // ever need it: theirs starts at INITIAL_RING slots and is unrolled into one
+    // twice the size whenever the snake passes half of it, so the slots grow()
+    // re-enters still hold the true trail. New slots repeat the oldest cell kept.
+    void ensureRing(int length) {
+        if (length * 2L <= x.length || x.length == cells)
+            return;
+        int size = (int) Math.min(cells, Math.max(x.length * 2L, length * 2L));
+        short[] nx = new short[size];
+        short[] ny = new short[size];
+        for (int i = 0; i < x.length; i++) {
+            int s = segment(i);
+            nx[i] = x[s];
+            ny[i] = y[s];
+        }
+        Arrays.fill(nx, x.length, size, nx[x.length - 1]);
+        Arrays.fill(ny, x.length, size, ny[x.length - 1]);
+        x = nx;
+        y = ny;
+        head = 0;
+    }
+
+    // Maps a segment index (0 = head) to its slot in the x[]/y[] ring buffer
+    int segment(int i) {
+        int s = head + i;
+        return s >= x.length ? s - x.length : s;
+    }
+
+    int headX() {
+        return x[head];
+    }
+
+    int headY() {
+        return y[head];
+    }
+
+    // Grid index of cell (cx, cy), or -1 when off the board
+    int cellAt(int cx, int cy) {
+        if (cx < 0 || cx >= cols || cy < 0 || cy >= rows)
+            return -1;
+        return cy * cols + cx;
+    }
+
+    // Grid index of the cell one step from the head in direction d, or -1 when that
+    // is off the board. In WRAP mode the snake reappears on the opposite side.
+    int cellAhead(SnakeEngine.Direction d) {
+        return cellToward(x[head], y[head], d);
+    }
+
+    // The same for one step from cell (cx, cy)
+    int cellToward(int cx, int cy, SnakeEngine.Direction d) {
+        cx += d.dx;
+        cy += d.dy;
+        if (wrap) {
+            if (cx < 0)
+                cx = cols - 1;
+            if (cx >= cols)
+                cx = 0;
+            if (cy < 0)
+                cy = rows - 1;
+            if (cy >= rows)
+                cy = 0;
+        }
+        return cellAt(cx, cy);
+    }
+
+    // Checks whether cell (cx, cy) holds the given item
+    boolean hasItem(int cx, int cy, byte flag) {
+        int c = cellAt(cx, cy);
+        return c >= 0 && (itemCells[c] & flag) != 0;
+    }
+
+    void setItem(int cx, int cy, byte flag) {
+        int c = cellAt(cx, cy);
+        itemCells[c] |= flag;
+        blocked.put(cx, cy, snakeCells[c] != 0 || (itemCells[c] & CELL_BLOCKING) != 0);
+        updateFree(c);
+    }
+
+    void clearItem(int cx, int cy, byte flag) {
+        int c = cellAt(cx, cy);
+        itemCells[c] &= ~flag;
+        blocked.put(cx, cy, snakeCells[c] != 0 || (itemCells[c] & CELL_BLOCKING) != 0);
+        updateFree(c);
+    }
+
+    // A snake segment enters or leaves cell (cx, cy). These take coordinates
+    // rather than a grid index because blocked needs them, and every caller has
+    // them to hand where an index would have to be divided back out.
+    void enterCell(int cx, int cy) {
+        int c = cy * cols + cx;
+        if (snakeCells[c]++ == 0) {
+            blocked.put(cx, cy, true);
+            updateFree(c);
+        }
+    }
+
+    void leaveCell(int cx, int cy) {
+        int c = cy * cols + cx;
+        if (--snakeCells[c] == 0) {
+            blocked.put(cx, cy, (itemCells[c] & CELL_BLOCKING) != 0);
+            updateFree(c);
+        }
+    }
+
+    // Adds cell c to, or swap-removes it from, the free-cell index
+    void updateFree(int c) {
+        boolean free = snakeCells[c] == 0 && itemCells[c] == 0;
+        if (freeBits != null) {
+            int w = c >>> 6;
+            if (free == ((freeBits[w] & 1L << c) != 0))
+                return;
+            freeBits[w] ^= 1L << c;
+            int delta = free ? 1 : -1;
+            freeCount += delta;
+            for (int i = w + 1; i < freeTree.length; i += i & -i) {
+                freeTree[i] += delta;
+            }
+        } else if (free && freeSlot[c] < 0) {
+            freeSlot[c] = freeCount;
+            freeCells[freeCount++] = c;
+        } else if (!free && freeSlot[c] >= 0) {
+            int last = freeCells[--freeCount];
+            freeCells[freeSlot[c]] = last;
+            freeSlot[last] = freeSlot[c];
+            freeSlot[c] = -1;
+        }
+    }
+
+    // Picks a uniformly random empty cell, or -1 when the board is full
+    int randomFreeCell() {
+        if (freeCount == 0)
+            return -1;
+        int n = random.nextInt(freeCount);
+        if (freeBits == null)
+            return freeCells[n];
+        // Down the tree to the word holding the n-th free cell, then along its bits
+        int w = 0;
+        for (int step = Integer.highestOneBit(freeTree.length - 1); step > 0; step >>= 1) {
+            if (w + step < freeTree.length && freeTree[w + step] <= n) {
+                w += step;
+                n -= freeTree[w];
+            }
+        }
+        long bits = freeBits[w];
+        for (; n > 0; n--) {
+            bits &= bits - 1;
+        }
+        return w << 6 | Long.numberOfTrailingZeros(bits);
+    }
+}
@@ -0,0 +1,45 @@
+package snake;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Three buffers handed between one writer thread and one reader thread without
+// either ever waiting for the other. The writer fills back() and publish()es it;
+// the reader takes latest(), the most recently published buffer. Each side owns
+// one buffer outright, and the third sits in the middle: publish() swaps the
+// back buffer into the middle and latest() swaps the middle out for the front,
+// each with a single atomic exchange of a slot number. So nothing is copied or
+// allocated, a buffer is never written while the reader has it, and a reader
+// that falls behind simply skips to the newest buffer.
+final class TripleBuffer<T> {
+    private static final int FRESH = 4; // set on the middle slot when it is newer than the front
+
+    private final Object[] slots;
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private int back = 0;  // writer's
+    private int front = 2; // reader's
+
+    TripleBuffer(T a, T b, T c) {
+        slots = new Object[] { a, b, c };
+    }
+
+    // Writer: the buffer to fill next. It holds whatever was last published into
+    // it, some frames ago; which of the three it is varies.
+    @SuppressWarnings("unchecked")
+    T back() {
+        return (T) slots[back];
+    }
+
+    // Writer: makes the back buffer the latest and takes another to fill
+    void publish() {
+        back = middle.getAndSet(back | FRESH) & 3;
+    }
+
+    // Reader: the most recently published buffer, which stays the reader's until
+    // its next call. Before anything is published it is an unfilled one.
+    @SuppressWarnings("unchecked")
+    T latest() {
+        if ((middle.get() & FRESH) != 0)
+            front = middle.getAndSet(front) & 3;
+        return (T) slots[front];
+    }
+}
@@ -0,0 +1,19 @@
+package snake;
+
+// Classic rules, but the snake reappears on the opposite side of the board
+public class WrapMode extends ClassicMode {
+    @Override
+    public String name() {
+        return "WRAP";
+    }
+
+    @Override
+    public String title() {
+        return "Wrap";
+    }
+
+    @Override
+    public boolean wraps() {
+        return true;
+    }
+}
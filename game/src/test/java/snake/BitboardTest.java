@@ -0,0 +1,112 @@
+package snake;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class BitboardTest {
+    // The cells reachable from (sx, sy) by a breadth-first search over a plain
+    // array, start cell included, as flood() promises to find them
+    private static boolean[] search(boolean[] wall, int cols, int rows, int sx, int sy, boolean wrap) {
+        boolean[] seen = new boolean[cols * rows];
+        int[] queue = new int[cols * rows];
+        int tail = 0;
+        seen[sy * cols + sx] = true;
+        queue[tail++] = sy * cols + sx;
+        for (int head = 0; head < tail; head++) {
+            int c = queue[head];
+            for (SnakeEngine.Direction d : SnakeEngine.Direction.values()) {
+                int x = c % cols + d.dx;
+                int y = c / cols + d.dy;
+                if (wrap) {
+                    x = (x + cols) % cols;
+                    y = (y + rows) % rows;
+                }
+                if (x < 0 || x >= cols || y < 0 || y >= rows)
+                    continue;
+                int n = y * cols + x;
+                if (!seen[n] && !wall[n]) {
+                    seen[n] = true;
+                    queue[tail++] = n;
+                }
+            }
+        }
+        return seen;
+    }
+
+    private static void matchesSearch(int cols, int rows, double density, boolean wrap, Random random) {
+        Bitboard walls = new Bitboard(cols, rows);
+        boolean[] wall = new boolean[cols * rows];
+        for (int c = 0; c < wall.length; c++) {
+            wall[c] = random.nextDouble() < density;
+            walls.put(c % cols, c / cols, wall[c]);
+        }
+        Bitboard reached = new Bitboard(cols, rows);
+        for (int trial = 0; trial < 8; trial++) {
+            int sx = random.nextInt(cols);
+            int sy = random.nextInt(rows);
+            boolean[] seen = search(wall, cols, rows, sx, sy, wrap);
+            int count = 0;
+            for (boolean s : seen) {
+                if (s)
+                    count++;
+            }
+            String board = cols + "x" + rows + " at " + density + (wrap ? " wrapped" : "") + " from " + sx + "," + sy;
+            assertEquals(count, reached.flood(sx, sy, walls, wrap), board);
+            for (int c = 0; c < seen.length; c++)
+                assertEquals(seen[c], reached.get(c % cols, c / cols), board + ", cell " + c);
+        }
+    }
+
+    @Test
+    void floodMatchesSearch() {
+        Random random = new Random(21);
+        int[][] sizes = {{1, 1}, {1, 9}, {9, 1}, {7, 5}, {63, 20}, {64, 64}, {65, 33}, {130, 17}, {200, 150}};
+        for (int[] size : sizes) {
+            for (double density : new double[] {0, 0.2, 0.35, 0.45, 0.6}) {
+                matchesSearch(size[0], size[1], density, false, random);
+                matchesSearch(size[0], size[1], density, true, random);
+            }
+        }
+    }
+
+    // A winding passage takes a pair of sweeps per turn, the worst case for flood()
+    @Test
+    void floodFollowsASpiral() {
+        int side = 65;
+        Bitboard walls = new Bitboard(side, side);
+        boolean[] wall = new boolean[side * side];
+        // Every other row walled off but for a gap at alternating ends
+        for (int y = 1; y < side; y += 2) {
+            for (int x = 0; x < side; x++) {
+                boolean gap = y % 4 == 1 ? x == side - 1 : x == 0;
+                wall[y * side + x] = !gap;
+                walls.put(x, y, !gap);
+            }
+        }
+        boolean[] seen = search(wall, side, side, 0, 0, false);
+        int count = 0;
+        for (boolean s : seen) {
+            if (s)
+                count++;
+        }
+        assertEquals(count, new Bitboard(side, side).flood(0, 0, walls, false));
+    }
+
+    // The bitboard SnakeState keeps marks exactly the body and blocking items
+    @Test
+    void stateKeepsBlockedCells() {
+        SnakeEngine engine = new SnakeEngine(70, 30);
+        engine.reset(GameModes.named("CLASSIC"), 3);
+        SnakeState s = engine.state();
+        SnakePolicy policy = new GreedyPolicy();
+        for (int t = 0; t < 500 && s.alive; t++) {
+            engine.step(policy.next(s));
+            for (int c = 0; c < s.cells; c++) {
+                boolean blocked = s.snakeCells[c] != 0 || (s.itemCells[c] & SnakeState.CELL_BLOCKING) != 0;
+                assertEquals(blocked, s.blocked.get(c % s.cols, c / s.cols), "tick " + s.tick + ", cell " + c);
+            }
+        }
+    }
+}
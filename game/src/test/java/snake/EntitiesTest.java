@@ -0,0 +1,58 @@
+package snake;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class EntitiesTest {
+    // Potions that run out are removed mid-sweep; the others, and the shield
+    // between them, keep their slots, cells and timers
+    @Test
+    void countDownKeepsTheOtherSlots() {
+        SnakeEngine engine = new SnakeEngine(10, 10);
+        engine.reset(GameModes.named("CLASSIC"), 1);
+        SnakeState s = engine.state();
+        Entities es = s.entities;
+        int[] ticks = {1, 3, 0, 1, 5};
+        int[] slot = new int[ticks.length];
+        for (int i = 0; i < ticks.length; i++) {
+            byte kind = i == 2 ? Entities.SHIELD : Entities.POTION;
+            slot[i] = engine.spawn(kind, ticks[i], Entities.STILL);
+        }
+        int[] x = new int[ticks.length];
+        int[] y = new int[ticks.length];
+        for (int i = 0; i < ticks.length; i++) {
+            x[i] = es.x[slot[i]];
+            y[i] = es.y[slot[i]];
+        }
+
+        engine.countDown(Entities.POTION);
+        assertEquals(2, es.count(Entities.POTION));
+        assertEquals(1, es.count(Entities.SHIELD));
+        for (int i = 0; i < ticks.length; i++) {
+            int e = slot[i];
+            boolean gone = ticks[i] == 1;
+            byte kind = i == 2 ? Entities.SHIELD : Entities.POTION;
+            assertEquals(gone ? Entities.NONE : kind, es.kind[e], "slot " + e);
+            assertEquals(!gone, s.hasItem(x[i], y[i], Entities.FLAGS[kind]), "slot " + e);
+            if (!gone) {
+                assertEquals(x[i], es.x[e]);
+                assertEquals(y[i], es.y[e]);
+                assertEquals(kind == Entities.SHIELD ? 0 : ticks[i] - 1, es.timer[e]);
+                assertEquals(e, es.find(kind, x[i], y[i]));
+            }
+        }
+
+        // The freed slots go to the next entities, and top stays put
+        int top = es.top;
+        int a = es.add(Entities.BONUS, 0, 9, 10, Entities.STILL);
+        int b = es.add(Entities.BONUS, 1, 9, 10, Entities.STILL);
+        assertTrue(a == slot[0] || a == slot[3]);
+        assertTrue(b == slot[0] || b == slot[3]);
+        assertFalse(a == b);
+        assertEquals(top, es.top);
+        assertEquals(2, es.count(Entities.POTION));
+    }
+}
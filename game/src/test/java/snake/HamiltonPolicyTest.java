@@ -0,0 +1,35 @@
+package snake;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class HamiltonPolicyTest {
+    // With an even side, shortcuts and all, the snake never dies and ends up
+    // on every cell; boards with odd rows take the cycle on its side
+    @Test
+    void fillsSmallBoards() {
+        int[][] sizes = {{4, 4}, {6, 6}, {8, 6}, {5, 6}, {6, 5}, {10, 8}};
+        for (int[] size : sizes) {
+            for (long seed = 1; seed <= 5; seed++) {
+                SnakeEngine engine = new SnakeEngine(size[0], size[1], rules());
+                engine.reset(GameModes.named("CLASSIC"), seed);
+                SnakeState s = engine.state();
+                SnakePolicy policy = new HamiltonPolicy();
+                while (s.alive && s.tick < 100_000)
+                    engine.step(policy.next(s));
+                String board = size[0] + "x" + size[1] + " seed " + seed;
+                assertTrue(s.won, board);
+                assertEquals(s.cells, s.bodyParts, board);
+            }
+        }
+    }
+
+    private static SnakeRules rules() {
+        SnakeRules rules = new SnakeRules();
+        rules.startLength = 2;
+        rules.startRow = 0;
+        return rules;
+    }
+}
@@ -0,0 +1,93 @@
+package snake;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class InputQueueTest {
+    private static final SnakeEngine.Direction UP = SnakeEngine.Direction.UP;
+    private static final SnakeEngine.Direction DOWN = SnakeEngine.Direction.DOWN;
+    private static final SnakeEngine.Direction LEFT = SnakeEngine.Direction.LEFT;
+    private static final SnakeEngine.Direction RIGHT = SnakeEngine.Direction.RIGHT;
+
+    // Heading right, UP then LEFT inside one tick turns up, then left on the next
+    // tick, never straight back into the neck
+    @Test
+    void quickTurnsPlayOutOverTicks() {
+        InputQueue queue = new InputQueue(16);
+        queue.offer(UP, 0);
+        queue.offer(LEFT, 0);
+        SnakeEngine.Direction heading = RIGHT;
+        assertEquals(UP, heading = queue.poll(heading));
+        assertEquals(LEFT, queue.poll(heading));
+        assertNull(queue.poll(LEFT));
+    }
+
+    @Test
+    void dropsRepeatsAndReversals() {
+        InputQueue queue = new InputQueue(16);
+        queue.offer(RIGHT, 0);
+        queue.offer(LEFT, 0);
+        queue.offer(DOWN, 0);
+        assertEquals(DOWN, queue.poll(RIGHT));
+        queue.offer(DOWN, 0);
+        queue.offer(UP, 0);
+        assertNull(queue.poll(DOWN));
+    }
+
+    @Test
+    void dropsTurnsWhenFull() {
+        InputQueue queue = new InputQueue(2);
+        assertTrue(queue.offer(UP, 0));
+        assertTrue(queue.offer(LEFT, 0));
+        assertFalse(queue.offer(DOWN, 0));
+        assertEquals(UP, queue.poll(RIGHT));
+        assertTrue(queue.offer(DOWN, 0));
+        assertEquals(LEFT, queue.poll(UP));
+        assertEquals(DOWN, queue.poll(LEFT));
+    }
+
+    @Test
+    void clearDropsQueuedTurns() {
+        InputQueue queue = new InputQueue(4);
+        queue.offer(UP, 0);
+        queue.offer(LEFT, 0);
+        queue.clear();
+        assertNull(queue.poll(RIGHT));
+        assertEquals("input: no turns", queue.toString());
+    }
+
+    @Test
+    void capacityMustBeAPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new InputQueue(12));
+    }
+
+    // One producer thread and one consumer, as the game runs them: every turn
+    // arrives, in order
+    @Test
+    void handsTurnsAcrossThreadsInOrder() throws Exception {
+        int count = 100_000;
+        InputQueue queue = new InputQueue(64);
+        Thread producer = new Thread(() -> {
+            for (int i = 0; i < count; i++) {
+                SnakeEngine.Direction turn = i % 2 == 0 ? UP : LEFT;
+                while (!queue.offer(turn, System.nanoTime()))
+                    Thread.yield();
+            }
+        });
+        producer.start();
+        SnakeEngine.Direction heading = RIGHT;
+        for (int i = 0; i < count; i++) {
+            SnakeEngine.Direction turn;
+            while ((turn = queue.poll(heading)) == null)
+                Thread.yield();
+            assertEquals(i % 2 == 0 ? UP : LEFT, turn);
+            heading = turn;
+        }
+        producer.join();
+    }
+}
@@ -0,0 +1,111 @@
+package snake;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LeaderboardTest {
+    @TempDir
+    Path dir;
+
+    // Waits for the background saves queued so far
+    private static void saved() throws Exception {
+        ReplayWriter.IO.submit(() -> { }).get();
+    }
+
+    @Test
+    void ranksBestFirstAndKeepsTopN() {
+        Leaderboard.Table table = new Leaderboard.Table("CLASSIC");
+        assertEquals(0, table.insert(5, 100, 1, 1, 1));
+        assertEquals(0, table.insert(9, 100, 1, 2, 2));
+        assertEquals(2, table.insert(5, 100, 1, 3, 3)); // ties keep the earlier game ahead
+        for (int i = 0; i < Leaderboard.TOP_N; i++)
+            table.insert(20 + i, 100, 1, 4, 4);
+        assertEquals(Leaderboard.TOP_N, table.count);
+        assertEquals(29, table.score[0]);
+        assertEquals(-1, table.insert(19, 100, 1, 5, 5));
+    }
+
+    @Test
+    void gamesThatScoredNothingNeverMakeIt() {
+        Leaderboard.Table table = new Leaderboard.Table("CLASSIC");
+        assertEquals(-1, table.insert(0, 100, 1, 1, 1));
+        assertEquals(-1, table.insert(-3, 100, 1, 1, 1));
+        assertEquals(0, table.count);
+    }
+
+    @Test
+    void savesAndLoadsEveryMode() throws Exception {
+        Path file = dir.resolve("scores.dat");
+        Leaderboard board = Leaderboard.load(file);
+        assertEquals(0, board.best("CLASSIC"));
+        board.submit("CLASSIC", 12, 500, 30, 1_000, 0xABCDEFL);
+        board.submit("CLASSIC", 40, 2_000, 90, 2_000, -1);
+        board.submit("ROGUE", 7, 300, 20, 3_000, 5);
+        saved();
+
+        Leaderboard loaded = Leaderboard.load(file);
+        Leaderboard.Table classic = loaded.top("CLASSIC");
+        assertEquals(2, classic.count);
+        assertEquals(40, classic.score[0]);
+        assertEquals(2_000, classic.ticks[0]);
+        assertEquals(90, classic.seconds[0]);
+        assertEquals(2_000, classic.date[0]);
+        assertEquals(-1, classic.seed[0]);
+        assertEquals(0xABCDEFL, classic.seed[1]);
+        assertEquals(7, loaded.best("ROGUE"));
+    }
+
+    // Saves go through a temporary file renamed over the board, so none is left
+    // behind, and one a crash left half written is never read
+    @Test
+    void savesByRenamingATemporaryFile() throws Exception {
+        Path file = dir.resolve("scores.dat");
+        Path temp = dir.resolve("scores.dat.tmp");
+        Leaderboard board = Leaderboard.load(file);
+        board.submit("CLASSIC", 12, 500, 30, 1_000, 1);
+        saved();
+        assertTrue(Files.exists(file));
+        assertFalse(Files.exists(temp));
+
+        byte[] before = Files.readAllBytes(file);
+        Files.write(temp, new byte[] {1, 2, 3});
+        assertEquals(12, Leaderboard.load(file).best("CLASSIC"));
+        assertArrayEquals(before, Files.readAllBytes(file));
+
+        board.submit("CLASSIC", 20, 500, 30, 2_000, 2);
+        saved();
+        assertFalse(Files.exists(temp));
+        assertEquals(20, Leaderboard.load(file).best("CLASSIC"));
+    }
+
+    @Test
+    void setsADamagedBoardAside() throws Exception {
+        Path file = dir.resolve("scores.dat");
+        Leaderboard board = Leaderboard.load(file);
+        board.submit("CLASSIC", 12, 500, 30, 1_000, 1);
+        saved();
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length / 2] ^= 1;
+        Files.write(file, bytes);
+
+        Leaderboard damaged = Leaderboard.load(file);
+        assertEquals(0, damaged.best("CLASSIC"));
+        assertFalse(Files.exists(file));
+        assertArrayEquals(bytes, Files.readAllBytes(dir.resolve("scores.dat.bad")));
+    }
+
+    @Test
+    void setsATruncatedBoardAside() throws Exception {
+        Path file = dir.resolve("scores.dat");
+        Files.write(file, new byte[] {'S', 'N'});
+        assertEquals(0, Leaderboard.load(file).best("CLASSIC"));
+        assertTrue(Files.exists(dir.resolve("scores.dat.bad")));
+    }
+}
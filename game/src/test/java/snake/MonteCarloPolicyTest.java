@@ -0,0 +1,47 @@
+package snake;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+
+class MonteCarloPolicyTest {
+    static final long BUDGET = 20_000_000; // ns a decision may search for
+    static final long SLACK = 100_000_000; // ns for the pool, the copies and a slow machine
+
+    // The apple sits in a pocket one cell deep to the head's right: eating it
+    // is the end, so every future that goes there dies and the bot turns down
+    @Test
+    void turnsAwayFromADeadEnd() {
+        SnakeRules rules = new SnakeRules();
+        rules.startLength = 2;
+        rules.startRow = 0;
+        SnakeEngine engine = new SnakeEngine(10, 10, rules);
+        engine.reset(GameModes.named("CLASSIC"), 1);
+        SnakeState s = engine.state();
+        s.setItem(3, 0, SnakeState.CELL_OBSTACLE);
+        s.setItem(2, 1, SnakeState.CELL_OBSTACLE);
+        s.clearItem(s.appleX, s.appleY, SnakeState.CELL_APPLE);
+        s.appleX = 2;
+        s.appleY = 0;
+        s.setItem(2, 0, SnakeState.CELL_APPLE);
+        assertEquals(SnakeEngine.Direction.RIGHT, new GreedyPolicy().next(s));
+
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            MonteCarloPolicy policy = new MonteCarloPolicy(rules, pool, BUDGET);
+            policy.seed = 1;
+            for (int i = 0; i < 5; i++) {
+                long start = System.nanoTime();
+                SnakeEngine.Direction d = policy.next(s);
+                long took = System.nanoTime() - start;
+                assertEquals(SnakeEngine.Direction.DOWN, d, "decision " + i);
+                assertTrue(took < BUDGET + SLACK, "decision " + i + " took " + took / 1_000_000 + " ms");
+            }
+            assertTrue(policy.lastRollouts > 0);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package snake;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReplayArchiveTest {
+    private static final byte[] REPLAY = {1, 2, 3};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void findsGamesByDate() throws Exception {
+        try (ReplayArchive archive = ReplayArchive.open(dir)) {
+            for (long date : new long[] {100, 200, 200, 300, 400})
+                archive.append(REPLAY, "CLASSIC", 1, 10, 1, 1, false, date);
+            assertEquals(400, archive.lastDate());
+            assertArrayEquals(new int[] {1, 2, 3}, archive.between(200, 400));
+            assertArrayEquals(new int[] {}, archive.between(401, 500));
+            assertArrayEquals(new int[] {0, 1, 2, 3, 4}, archive.between(0, 1000));
+        }
+        try (ReplayArchive archive = ReplayArchive.openForReading(dir)) {
+            assertEquals(5, archive.size());
+            assertArrayEquals(new int[] {4}, archive.between(301, 1000));
+        }
+    }
+
+    // Bisection over dates only works while they never go backwards
+    @Test
+    void rejectsGamesOlderThanTheLast() throws Exception {
+        try (ReplayArchive archive = ReplayArchive.open(dir)) {
+            assertEquals(Long.MIN_VALUE, archive.lastDate());
+            archive.append(REPLAY, "CLASSIC", 1, 10, 1, 1, false, 500);
+            assertThrows(IllegalArgumentException.class,
+                    () -> archive.append(REPLAY, "CLASSIC", 2, 10, 1, 1, false, 499));
+            assertEquals(1, archive.size());
+        }
+        try (ReplayArchive archive = ReplayArchive.open(dir)) {
+            assertThrows(IllegalArgumentException.class,
+                    () -> archive.append(REPLAY, "CLASSIC", 3, 10, 1, 1, false, 100));
+            archive.append(REPLAY, "ROGUE", 4, 10, 1, 1, false, 500);
+            assertEquals(2, archive.size());
+            assertEquals("ROGUE", archive.mode(1));
+        }
+    }
+
+    // Each recording goes to the archive in its own writer's directory
+    @Test
+    void writersKeepToTheirOwnArchive() throws Exception {
+        GameMode mode = GameModes.named("CLASSIC");
+        SnakeRules rules = new SnakeRules();
+        for (int seed = 1; seed <= 2; seed++) {
+            Path archiveDir = dir.resolve("archive" + seed);
+            ReplayWriter writer = new ReplayWriter(dir.resolve(seed + ".snkr"), archiveDir, mode, rules, 24, 18, seed);
+            SnakeEngine engine = new SnakeEngine(24, 18, rules);
+            engine.reset(mode, seed);
+            writer.finish(engine.state(), 0);
+        }
+        ReplayWriter.IO.submit(() -> { }).get();
+        for (int seed = 1; seed <= 2; seed++) {
+            try (ReplayArchive archive = ReplayArchive.openForReading(dir.resolve("archive" + seed))) {
+                assertEquals(1, archive.size());
+                assertEquals(seed, archive.seed(0));
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package snake;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ReplayTest {
+    @TempDir
+    Path dir;
+
+    // Plays a greedy game, recording it as GamePanel does, and reads it back
+    private Replay record(GameMode mode, SnakeRules rules, long seed) throws Exception {
+        Path file = dir.resolve(mode.name() + "-" + seed + ".snkr");
+        SnakeEngine engine = new SnakeEngine(24, 18, rules);
+        engine.reset(mode, seed);
+        SnakeState s = engine.state();
+        ReplayWriter writer = new ReplayWriter(file, null, mode, rules, 24, 18, seed);
+        SnakePolicy policy = new GreedyPolicy();
+        while (s.alive && s.tick < 100_000) {
+            SnakeEngine.Direction turn = policy.next(s);
+            if (turn != null)
+                writer.turn(s.tick + 1, turn);
+            engine.step(turn);
+        }
+        writer.finish(s, 0);
+        ReplayWriter.IO.submit(() -> { }).get();
+        Replay replay = Replay.read(file);
+        assertEquals(s.tick, replay.ticks);
+        assertEquals(s.applesEaten, replay.score);
+        assertEquals(s.won, replay.won);
+        return replay;
+    }
+
+    @Test
+    void playsBackEveryMode() throws Exception {
+        for (GameMode mode : GameModes.all()) {
+            Replay replay = record(mode, new SnakeRules(), 42);
+            assertEquals(mode.name(), replay.mode);
+            assertTrue(replay.defaultRules());
+            assertTrue(replay.verify(), mode.name());
+        }
+    }
+
+    @Test
+    void keepsChangedRules() throws Exception {
+        SnakeRules rules = new SnakeRules();
+        rules.enemyCount = 3;
+        rules.startLength = 6;
+        Replay replay = record(GameModes.named("ROGUE"), rules, 7);
+        assertFalse(replay.defaultRules());
+        assertEquals(3, replay.rules.enemyCount);
+        assertEquals(6, replay.rules.startLength);
+        assertTrue(replay.verify());
+    }
+
+    @Test
+    void keepsExtremeRuleValues() throws Exception {
+        int[] values = {Integer.MAX_VALUE, 1 << 30, (1 << 30) + 1, (1 << 30) - 1, 1};
+        for (int value : values) {
+            SnakeRules rules = new SnakeRules();
+            rules.set("applesPerShield", value);
+            Path file = dir.resolve("rules.snkr");
+            ReplayWriter writer = new ReplayWriter(file, null, GameModes.named("CLASSIC"), rules, 24, 18, 1);
+            writer.finish(new SnakeEngine(24, 18, rules).state(), 0);
+            ReplayWriter.IO.submit(() -> { }).get();
+            assertEquals(value, Replay.read(file).rules.get("applesPerShield"));
+        }
+    }
+
+    @Test
+    void varLongsRoundTrip() throws Exception {
+        long[] values = {0, 1, 127, 128, 16_383, 16_384, Integer.MAX_VALUE, 1L << 35, Long.MAX_VALUE, -1};
+        ByteBuffer buffer = ByteBuffer.allocate(values.length * 10);
+        for (long value : values)
+            Replay.putVarLong(buffer, value);
+        buffer.flip();
+        for (long value : values)
+            assertEquals(value, Replay.getVarLong(buffer));
+        assertFalse(buffer.hasRemaining());
+    }
+
+    @Test
+    void cutOffReplayKeepsItsWholeTurns() throws Exception {
+        Replay whole = record(GameModes.named("CLASSIC"), new SnakeRules(), 3);
+        byte[] bytes = Files.readAllBytes(dir.resolve("CLASSIC-3.snkr"));
+        ByteBuffer footer = ByteBuffer.allocate(32);
+        Replay.putVarLong(footer, 0);
+        Replay.putVarLong(footer, whole.ticks);
+        Replay.putVarLong(footer, whole.score);
+        footer.put((byte) 0);
+        // Drop the footer and the last turn's final byte
+        Replay cut = Replay.read(ByteBuffer.wrap(bytes, 0, bytes.length - footer.position() - 1));
+        assertEquals(-1, cut.ticks);
+        assertFalse(cut.verify());
+        assertEquals(whole.turnCount - 1, cut.turnCount);
+        for (int i = 0; i < cut.turnCount; i++) {
+            assertEquals(whole.turnTicks[i], cut.turnTicks[i]);
+            assertEquals(whole.turns[i], cut.turns[i]);
+        }
+    }
+
+    // A header as ReplayWriter writes it, with one changed rule and no turns
+    private static ByteBuffer header(String mode, int cols, int rows, String rule, long zigzag) {
+        ByteBuffer out = ByteBuffer.allocate(128);
+        out.putInt(Replay.MAGIC).put((byte) Replay.VERSION);
+        Replay.putString(out, mode);
+        Replay.putVarLong(out, cols);
+        Replay.putVarLong(out, rows);
+        out.putLong(1);
+        Replay.putVarLong(out, 1);
+        Replay.putString(out, rule);
+        Replay.putVarLong(out, zigzag);
+        Replay.putVarLong(out, 0);
+        Replay.putVarLong(out, 10);
+        Replay.putVarLong(out, 0);
+        out.put((byte) 0);
+        out.flip();
+        return out;
+    }
+
+    // Rules or boards no engine could play are reported, not played
+    @Test
+    void rejectsBadRules() throws Exception {
+        assertEquals(10, Replay.read(header("CLASSIC", 32, 32, "applesPerSpeedUp", 2 * 3)).ticks);
+        assertThrows(IOException.class, () -> Replay.read(header("CLASSIC", 32, 32, "applesPerSpeedUp", 0)));
+        assertThrows(IOException.class, () -> Replay.read(header("CLASSIC", 32, 32, "startLength", 2 * 40)));
+        assertThrows(IOException.class, () -> Replay.read(header("CLASSIC", 32, 32, "startRow", 2 * 32)));
+        assertThrows(IOException.class, () -> Replay.read(header("CLASSIC", 32, 32, "enemyCount", 1)));
+        assertThrows(IOException.class, () -> Replay.read(header("CLASSIC", 32, 32, "noSuchRule", 2)));
+        assertThrows(IOException.class, () -> Replay.read(header("CLASSIC", 0, 32, "bonusScore", 2)));
+        assertThrows(IOException.class, () -> Replay.read(header("NO_SUCH_MODE", 32, 32, "bonusScore", 2)));
+    }
+}
@@ -0,0 +1,51 @@
+package snake;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class SafePolicyTest {
+    // A 40x60 board walled down column 20 but for the head's cell, with a
+    // 601-part snake coiled over columns 0-9. The apple is left, in a region of
+    // 600 cells: more than LIMIT, but one too few for the snake.
+    private static SnakeState trap() {
+        SnakeEngine engine = new SnakeEngine(40, 60);
+        engine.reset(GameModes.named("CLASSIC"), 1);
+        SnakeState s = engine.state();
+        s.clearBoard();
+        for (int y = 0; y < s.rows; y++) {
+            if (y != 30)
+                s.setItem(20, y, SnakeState.CELL_OBSTACLE);
+        }
+        s.head = 0;
+        s.bodyParts = 601;
+        s.x[0] = 20;
+        s.y[0] = 30;
+        s.enterCell(20, 30);
+        for (int i = 1; i < s.bodyParts; i++) {
+            int k = s.bodyParts - 1 - i; // the tail, segment 600, coils from (0, 0)
+            int col = k / s.rows;
+            int row = col % 2 == 0 ? k % s.rows : s.rows - 1 - k % s.rows;
+            s.x[i] = (short) col;
+            s.y[i] = (short) row;
+            s.enterCell(col, row);
+        }
+        s.direction = SnakeEngine.Direction.UP;
+        s.appleX = 15;
+        s.appleY = 30;
+        s.setItem(15, 30, SnakeState.CELL_APPLE);
+        return s;
+    }
+
+    @Test
+    void measuresRegionsPastTheSearchLimit() {
+        assertEquals(SnakeEngine.Direction.RIGHT, new SafePolicy().next(trap()));
+    }
+
+    @Test
+    void headsForTheAppleWhenThereIsRoom() {
+        SnakeState s = trap();
+        s.clearItem(20, 0, SnakeState.CELL_OBSTACLE); // opens the left onto the right
+        assertEquals(SnakeEngine.Direction.LEFT, new SafePolicy().next(s));
+    }
+}
@@ -0,0 +1,182 @@
+package snake;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SnakeEngineTest {
+    // A two-part snake in the top row of a board of the given size
+    private static SnakeEngine engine(int cols, int rows, String mode, long seed) {
+        SnakeRules rules = new SnakeRules();
+        rules.startLength = 2;
+        rules.startRow = 0;
+        SnakeEngine engine = new SnakeEngine(cols, rows, rules);
+        engine.reset(GameModes.named(mode), seed);
+        return engine;
+    }
+
+    // Moves the apple to (x, y), out of the way of a test's path
+    private static void putApple(SnakeState s, int x, int y) {
+        s.clearItem(s.appleX, s.appleY, SnakeState.CELL_APPLE);
+        s.appleX = x;
+        s.appleY = y;
+        s.setItem(x, y, SnakeState.CELL_APPLE);
+    }
+
+    // Moves entity e to (x, y)
+    private static void putEntity(SnakeState s, int e, int x, int y) {
+        Entities es = s.entities;
+        byte flag = Entities.FLAGS[es.kind[e]];
+        s.clearItem(es.x[e], es.y[e], flag);
+        es.x[e] = x;
+        es.y[e] = y;
+        s.setItem(x, y, flag);
+    }
+
+    // Every tick's events and head cell, played by the greedy policy
+    private static List<Integer> play(String mode, long seed) {
+        SnakeEngine engine = engine(20, 15, mode, seed);
+        SnakeState s = engine.state();
+        SnakePolicy policy = new GreedyPolicy();
+        List<Integer> trace = new ArrayList<>();
+        while (s.alive && s.tick < 2000) {
+            trace.add(engine.step(policy.next(s)));
+            trace.add(s.cellAt(s.headX(), s.headY()));
+        }
+        return trace;
+    }
+
+    @Test
+    void sameSeedPlaysTheSameGame() {
+        for (String mode : new String[] {"CLASSIC", "WRAP", "OBSTACLE", "BONUS", "ROGUE"}) {
+            assertEquals(play(mode, 7), play(mode, 7), mode);
+            assertNotEquals(play(mode, 7), play(mode, 8), mode);
+        }
+    }
+
+    // Off the top edge: the end of a classic game, a way round in WRAP
+    @Test
+    void wallsKillUnlessTheBoardWraps() {
+        SnakeEngine classic = engine(8, 8, "CLASSIC", 1);
+        putApple(classic.state(), 5, 5);
+        assertEquals(SnakeEngine.EVENT_DEATH, classic.step(SnakeEngine.Direction.UP));
+        assertFalse(classic.state().alive);
+
+        SnakeEngine wrap = engine(8, 8, "WRAP", 1);
+        SnakeState s = wrap.state();
+        putApple(s, 5, 5);
+        assertEquals(0, wrap.step(SnakeEngine.Direction.UP));
+        assertTrue(s.alive);
+        assertEquals(1, s.headX());
+        assertEquals(7, s.headY());
+    }
+
+    // A five-part snake turning back round into its own body
+    @Test
+    void runningIntoTheBodyKills() {
+        SnakeRules rules = new SnakeRules();
+        rules.startLength = 5;
+        rules.startRow = 0;
+        SnakeEngine engine = new SnakeEngine(8, 8, rules);
+        engine.reset(GameModes.named("CLASSIC"), 1);
+        SnakeState s = engine.state();
+        putApple(s, 7, 7);
+        assertEquals(0, engine.step(SnakeEngine.Direction.DOWN));
+        assertEquals(0, engine.step(SnakeEngine.Direction.LEFT));
+        assertEquals(SnakeEngine.EVENT_DEATH, engine.step(SnakeEngine.Direction.UP));
+        assertFalse(s.alive);
+    }
+
+    // A shield takes the first obstacle and is gone, so the second kills
+    @Test
+    void aShieldAbsorbsOneObstacle() {
+        SnakeEngine engine = engine(8, 8, "CLASSIC", 1);
+        SnakeState s = engine.state();
+        putApple(s, 7, 7);
+        s.hasShield = true;
+        s.setItem(2, 0, SnakeState.CELL_OBSTACLE);
+        s.setItem(3, 0, SnakeState.CELL_OBSTACLE);
+        assertEquals(0, engine.step(null));
+        assertTrue(s.alive);
+        assertFalse(s.hasShield);
+        assertEquals(SnakeEngine.EVENT_DEATH, engine.step(null));
+        assertFalse(s.alive);
+    }
+
+    // An enemy takes one health, a potion gives it back but never past
+    // maxHealth, and the last health lost ends the game
+    @Test
+    void enemiesHurtAndPotionsHeal() {
+        SnakeEngine engine = engine(10, 10, "ROGUE", 1);
+        SnakeState s = engine.state();
+        SnakeRules rules = engine.rules;
+        putApple(s, 9, 9);
+        assertEquals(rules.startHealth, s.health);
+        putEntity(s, 0, 2, 0); // the one enemy, on the head's next cell
+        assertEquals(SnakeEngine.EVENT_HIT, engine.step(null));
+        assertEquals(rules.startHealth - 1, s.health);
+        assertTrue(s.alive);
+
+        putEntity(s, 0, 9, 8);
+        putEntity(s, engine.spawn(Entities.POTION, 100, Entities.STILL), 3, 0);
+        assertEquals(SnakeEngine.EVENT_POTION, engine.step(null));
+        assertEquals(rules.startHealth, s.health);
+        assertEquals(0, s.entities.count(Entities.POTION));
+
+        s.health = rules.maxHealth;
+        putEntity(s, engine.spawn(Entities.POTION, 100, Entities.STILL), 4, 0);
+        assertEquals(SnakeEngine.EVENT_POTION, engine.step(null));
+        assertEquals(rules.maxHealth, s.health);
+
+        s.health = 1;
+        putEntity(s, 0, 5, 0);
+        assertEquals(SnakeEngine.EVENT_HIT | SnakeEngine.EVENT_DEATH, engine.step(null));
+        assertEquals(0, s.health);
+        assertFalse(s.alive);
+    }
+
+    // The snake grows into the board's last cell, and that wins
+    @Test
+    void fillingTheBoardWins() {
+        SnakeEngine engine = engine(4, 3, "CLASSIC", 1);
+        SnakeState s = engine.state();
+        SnakePolicy policy = new HamiltonPolicy();
+        int events = 0;
+        while (s.alive && !s.won && s.tick < 1000)
+            events = engine.step(policy.next(s));
+        assertTrue(s.won);
+        assertFalse(s.alive); // a won game is over
+        assertEquals(SnakeEngine.EVENT_WIN, events & SnakeEngine.EVENT_WIN);
+        assertEquals(s.cells, s.bodyParts);
+        assertEquals(0, s.freeCount);
+        assertEquals(0, engine.step(null));
+    }
+
+    // Past CHASE_CELLS enemies step straight at the head rather than search
+    @Test
+    void bigBoardsChaseWithoutTheField() {
+        assertEquals(Entities.CHASE, engine(256, 256, "ROGUE", 1).state().entities.behaviour[0]);
+        assertEquals(Entities.STEP, engine(257, 256, "ROGUE", 1).state().entities.behaviour[0]);
+    }
+
+    // The HUD rebuilds its status line only for a new string, so an unchanged
+    // health gives the same one back, however high the rules let it go
+    @Test
+    void rogueStatusKeepsItsString() {
+        SnakeEngine engine = engine(10, 10, "ROGUE", 1);
+        SnakeState s = engine.state();
+        GameMode mode = s.mode;
+        for (int health : new int[] {3, 64, 1000}) {
+            s.health = health;
+            String text = mode.status(s);
+            assertEquals("Health: " + health, text);
+            assertSame(text, mode.status(s));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package snake;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+
+class SnakeRulesTest {
+    @Test
+    void rejectsValuesTheEngineCannotPlay() {
+        SnakeRules rules = new SnakeRules();
+        for (String divisor : new String[] {"applesPerSpeedUp", "applesPerBonus", "applesPerShield", "applesPerPotion"})
+            assertThrows(IllegalArgumentException.class, () -> rules.set(divisor, 0), divisor);
+        assertThrows(IllegalArgumentException.class, () -> rules.set("startLength", 0));
+        assertThrows(IllegalArgumentException.class, () -> rules.set("enemyCount", -1));
+        assertThrows(IllegalArgumentException.class, () -> rules.set("enemyChase", 2));
+        assertThrows(IllegalArgumentException.class, () -> rules.set("noSuchRule", 1));
+        assertEquals(new SnakeRules().applesPerSpeedUp, rules.applesPerSpeedUp);
+        rules.set("obstacleCount", 0);
+        assertEquals(0, rules.obstacleCount);
+    }
+
+    @Test
+    void rejectsAStartOffTheBoard() {
+        SnakeRules rules = new SnakeRules();
+        rules.startLength = 40;
+        assertThrows(IllegalArgumentException.class, () -> new SnakeEngine(32, 32, rules));
+        rules.startLength = 32;
+        new SnakeEngine(32, 32, rules);
+        rules.startRow = 32;
+        assertThrows(IllegalArgumentException.class, () -> new SnakeEngine(32, 32, rules));
+    }
+
+    // Fields set directly are checked when an engine is made
+    @Test
+    void checksFieldsSetDirectly() {
+        SnakeRules rules = new SnakeRules();
+        rules.applesPerSpeedUp = 0;
+        assertThrows(IllegalArgumentException.class, () -> new SnakeEngine(32, 32, rules));
+    }
+
+    @Test
+    void batchTurnsDownBadRunsBeforeStarting() {
+        BatchSimulator simulator = new BatchSimulator(1);
+        try {
+            GameMode classic = GameModes.named("CLASSIC");
+            assertThrows(IllegalArgumentException.class,
+                    () -> simulator.run(classic, new SnakeRules(), GreedyPolicy::new, 1, 0));
+            SnakeRules rules = new SnakeRules();
+            rules.startRow = 40;
+            assertThrows(IllegalArgumentException.class,
+                    () -> simulator.run(classic, rules, GreedyPolicy::new, 1, 10));
+            assertEquals(10, simulator.run(classic, new SnakeRules(), GreedyPolicy::new, 1, 10).scores.length);
+        } finally {
+            simulator.shutdown();
+        }
+    }
+}
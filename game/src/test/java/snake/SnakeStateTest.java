@@ -0,0 +1,86 @@
+package snake;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class SnakeStateTest {
+    private static final int DRAWS_PER_CELL = 200;
+
+    // Fills the board with obstacles except every step-th cell and the last one,
+    // then checks draws land only on those, each about as often as the rest
+    private static void drawsUniformly(int cols, int rows, int step) {
+        SnakeState s = new SnakeState(cols, rows);
+        s.random.setSeed(11);
+        s.clearBoard();
+        assertEquals(s.cells, s.freeCount);
+        int free = 0;
+        for (int c = 0; c < s.cells; c++) {
+            if (c % step == 0 || c == s.cells - 1)
+                free++;
+            else
+                s.setItem(c % cols, c / cols, SnakeState.CELL_OBSTACLE);
+        }
+        assertEquals(free, s.freeCount);
+
+        int[] hits = new int[s.cells];
+        int draws = free * DRAWS_PER_CELL;
+        for (int i = 0; i < draws; i++) {
+            int c = s.randomFreeCell();
+            assertTrue(c % step == 0 || c == s.cells - 1, "drew occupied cell " + c);
+            hits[c]++;
+        }
+        // Pearson's chi-squared over the free cells: free - 1 degrees of
+        // freedom, so a fair draw stays well within six deviations of that
+        double chi = 0;
+        for (int c = 0; c < s.cells; c++) {
+            if (c % step == 0 || c == s.cells - 1) {
+                assertTrue(hits[c] > 0, "never drew cell " + c);
+                double d = hits[c] - DRAWS_PER_CELL;
+                chi += d * d / DRAWS_PER_CELL;
+            }
+        }
+        double dof = free - 1;
+        assertTrue(Math.abs(chi - dof) < 6 * Math.sqrt(2 * dof), "chi-squared " + chi + " for " + dof);
+    }
+
+    @Test
+    void compactBoardDrawsUniformly() {
+        // Past COMPACT_CELLS, with a last word only partly on the board
+        assertTrue(1101 * 1000 > SnakeState.COMPACT_CELLS);
+        drawsUniformly(1101, 1000, 997);
+    }
+
+    @Test
+    void smallBoardDrawsUniformly() {
+        drawsUniformly(24, 18, 3);
+    }
+
+    @Test
+    void compactBoardTracksCellsComingAndGoing() {
+        SnakeState s = new SnakeState(1101, 1000);
+        s.random.setSeed(5);
+        s.clearBoard();
+        s.enterCell(3, 0);
+        s.setItem(70, 500, SnakeState.CELL_APPLE);
+        s.setItem(70, 500, SnakeState.CELL_OBSTACLE);
+        assertEquals(s.cells - 2, s.freeCount);
+        s.clearItem(70, 500, SnakeState.CELL_APPLE);
+        assertEquals(s.cells - 2, s.freeCount);
+        s.clearItem(70, 500, SnakeState.CELL_OBSTACLE);
+        s.leaveCell(3, 0);
+        assertEquals(s.cells, s.freeCount);
+
+        // Down to one free cell, which every draw must find
+        for (int c = 0; c < s.cells; c++) {
+            if (c != 777_777)
+                s.setItem(c % 1101, c / 1101, SnakeState.CELL_OBSTACLE);
+        }
+        assertEquals(1, s.freeCount);
+        for (int i = 0; i < 100; i++)
+            assertEquals(777_777, s.randomFreeCell());
+        s.setItem(777_777 % 1101, 777_777 / 1101, SnakeState.CELL_OBSTACLE);
+        assertEquals(-1, s.randomFreeCell());
+    }
+}